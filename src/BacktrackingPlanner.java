@@ -0,0 +1,477 @@
+import java.util.Arrays;
+
+/**
+ * Finds the same path as DepthFirstPlanner without allocating objects during the search.
+ * The search runs over the RoadGraph of the game, the visits are counted in a single int[] which is
+ * incremented and decremented in place, and the best path of every level of the recursion is kept
+ * in arrays which are allocated once per game (and grown if the depth is increased).
+ *
+ * With pruning (branch and bound), a road from a city is skipped if no path starting with it can be worth more
+ * than the best path from that city found so far (the search keeps the best path from every city of the current
+ * path, see search). The cities of a path are divided by IMPULSIVENESS^k, where k counts the roads from the end
+ * of the path, so a path of at most k roads from a city is worth at most the sum of the k largest values (and their
+ * halves, for repeated visits) of the cities within reach, divided by IMPULSIVENESS^1, ^2, ..., ^k, plus the largest
+ * of those values (for the first city of its last road). These bounds are computed when they are first needed in
+ * a search, and kept in a cache of a bounded number of slots (a bound which is pushed out is computed again), from
+ * the cities within reach of every city which the search probes (found once per graph by Dijkstra's algorithm, up to
+ * the distance a search of the current depth can travel). Nothing of this is allocated without pruning. As only
+ * roads which cannot be the best are skipped, the search finds the same path with or without pruning. The bounds
+ * also hold for the expected payoffs of the expectimax evaluation of SmartPlayer (see ExpectedPayoffs), which are at
+ * most half the values.
+ *
+ * With a TranspositionTable, the best path from every searched state (city, steps left and visits) is stored,
+ * and a state reached again by another ordering of the same roads is not searched again.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class BacktrackingPlanner extends Planner {
+    private static final int BOUND_SLOTS = 1 << 14;   // Largest number of slots of the cache of the bounds
+
+    private Game game;                  // Game of the current search (has the values of the cities)
+    private ExpectedPayoffs payoffs;    // Expected payoffs of the current search (or null to use the values)
+    private RoadGraph graph;            // Graph for which the arrays are built
+    private int minLength;              // Length of the shortest road
+    private int[] visits;               // Number of visits of every city in the current search
+
+    private double[] bestValue;         // Value of the best path of every level
+    private int[] bestLength;           // Length of the best path of every level
+    private int[] bestSize;             // Number of roads of the best path of every level
+    private int[][] bestRoads;          // Roads of the best path of every level
+    private int[][] bestPenalties;      // Visits of the cities of the best path of every level
+
+    private long deadline = Long.MAX_VALUE; // Time (System.nanoTime) at which the search is aborted
+    private boolean aborted;            // Whether the current search has been aborted
+    private int nodes;                  // Number of searched nodes (the time is checked every 1024 nodes)
+    private int completedRoads;         // Number of first roads which have been searched completely
+
+    private boolean pruning;            // Whether roads which cannot lead to the best path are skipped
+    private double[] discount;          // 1 / IMPULSIVENESS^k
+    private NearestCities nearest;      // Cities within reach of the probed cities
+    private long[] boundKeys;           // City and k of the bound of every slot of the cache (see reachBound)
+    private double[] boundValue;        // Largest possible value of k roads from the city of every slot
+    private double[] boundMax;          // Largest value of a city within reach of k roads from the city of every slot
+    private int[] boundStamp;           // Search in which the bound of every slot was computed (0 for none)
+    private int stamp;                  // Number of the current search
+    private double[] heap;              // Values of the cities within reach (as a max-heap)
+
+    private TranspositionTable table;   // Best paths of the searched states (or null)
+    private long hash;                  // Zobrist hash of the visits and values of the current search
+
+    /**
+     * Creates a new backtracking planner.
+     * @param maxDepth the number of steps to look forward
+     */
+    public BacktrackingPlanner(int maxDepth) {
+        this(maxDepth, false);
+    }
+
+    /**
+     * Creates a new backtracking planner, which may skip roads that cannot lead to the best path.
+     * @param maxDepth the number of steps to look forward
+     * @param pruning true to skip roads which cannot lead to the best path
+     */
+    public BacktrackingPlanner(int maxDepth, boolean pruning) {
+        super(maxDepth);
+        this.pruning = pruning;
+    }
+
+    @Override
+    public Planner copy() {
+        BacktrackingPlanner copy = new BacktrackingPlanner(getMaxDepth(), pruning);
+        if (table != null) {
+            copy.setTranspositionTable(new TranspositionTable(table.getCapacity(), table.getAgeCutoff()));
+        }
+        return copy;
+    }
+
+    /**
+     * Changes the transposition table of this planner.
+     * @param table the transposition table (or null to search without one)
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Returns the transposition table of this planner.
+     * @return the transposition table (or null)
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Determines whether this planner skips roads which cannot lead to the best path.
+     * @return true if this planner prunes
+     */
+    public boolean isPruning() {
+        return pruning;
+    }
+
+    /**
+     * Returns the number of nodes (cities on a path) of the last search.
+     * @return the number of nodes
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public City nextCity(SmartPlayer player, City c, int n) {
+        search(player, c, Math.min(getMaxDepth(), n));
+        if (bestSize[0] == 0) {
+            return c;
+        }
+        return graph.getCity(graph.getTarget(bestRoads[0][0]));
+    }
+
+    @Override
+    public PlayerPath bestPath(SmartPlayer player, City c, int n) {
+        search(player, c, n);
+        PlayerPath p = new PlayerPath(player);
+        for (int i = bestSize[0] - 1; i >= 0; i--) {
+            p.addRoad(graph.getRoad(bestRoads[0][i]), bestPenalties[0][i]);
+        }
+        return p;
+    }
+
+    /**
+     * Searches every path from a city and leaves the best in level 0 of the arrays.
+     * @param player the player who is searching (whose game has the values of the cities)
+     * @param c the current city
+     * @param n the number of steps to look forward
+     */
+    private void search(SmartPlayer player, City c, int n) {
+        search(player, c, n, -1, Long.MAX_VALUE);
+    }
+
+    /**
+     * Searches every path from a city like search(player, c, n), but searches a given first road before the
+     * others and aborts the search at a deadline. The best path (see getBestSize) is then the best path starting
+     * with one of the first roads which were searched completely (see getCompletedRoads).
+     * @param player the player who is searching (whose game has the values of the cities)
+     * @param c the current city
+     * @param n the number of steps to look forward
+     * @param firstRoad the index of the road to search first (or -1 to search the roads in their order)
+     * @param deadline the time (System.nanoTime) at which the search is aborted
+     * @return true if the search was completed, false if it was aborted
+     */
+    boolean search(SmartPlayer player, City c, int n, int firstRoad, long deadline) {
+        game = player.getGame();
+        prepare(game.getGraph(), n);
+        payoffs = player.getExpectedPayoffs();
+        if (payoffs != null) {
+            payoffs.update(player);
+        }
+        int start = c.getId();
+        Arrays.fill(visits, 0);
+        visits[start] = 1;
+        this.deadline = deadline;
+        aborted = false;
+        nodes = 0;
+        completedRoads = 0;
+        stamp++;
+        if (table != null) {
+            table.startSearch(graph.getCityCount(), n, bestValue.length);
+            hash = valuesHash() ^ table.visitKey(start, 1);
+        }
+        bestValue[0] = 0;
+        bestLength[0] = 0;
+        bestSize[0] = 0;
+        if (firstRoad >= 0) {
+            searchRoad(0, start, firstRoad, n);
+        }
+        int last = graph.getFirstRoad(start + 1);
+        for (int e = graph.getFirstRoad(start); e < last && !aborted; e++) {
+            if (e != firstRoad) {
+                searchRoad(0, start, e, n);
+            }
+        }
+        return !aborted;
+    }
+
+    /**
+     * Calculates the n-steps optimal route from a city and stores it in a given level of the arrays.
+     * @param level the level of the recursion
+     * @param city the index of the current city
+     * @param n the number of steps to look forward
+     */
+    private void search(int level, int city, int n) {
+        bestValue[level] = 0;
+        bestLength[level] = 0;
+        bestSize[level] = 0;
+        if ((++nodes & 1023) == 0 && deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+            aborted = true;
+        }
+        long key = 0;
+        if (table != null) {
+            key = hash ^ table.cityKey(city, n);
+            int slot = table.find(key, n);
+            if (slot >= 0) {
+                bestValue[level] = table.getValue(slot);
+                bestLength[level] = table.getLength(slot);
+                bestSize[level] = table.copyPath(slot, bestRoads[level], bestPenalties[level]);
+                return;
+            }
+        }
+        int last = graph.getFirstRoad(city + 1);
+        for (int e = graph.getFirstRoad(city); e < last && !aborted; e++) {
+            searchRoad(level, city, e, n);
+        }
+        if (table != null && !aborted) {
+            table.store(key, n, bestValue[level], bestLength[level], bestSize[level],
+                    bestRoads[level], bestPenalties[level]);
+        }
+    }
+
+    /**
+     * Computes a hash of the values of all cities (part of the hash of a state in the transposition table).
+     * @return the hash
+     */
+    private long valuesHash() {
+        long h = 0;
+        for (int id = 0; id < graph.getCityCount(); id++) {
+            h = h * 31 + game.getValue(graph.getCity(id));
+        }
+        return RandomStreams.mix(h) ^ (payoffs == null ? 0 : payoffs.getKey());
+    }
+
+    /**
+     * Searches the paths from a city which start with a given road, and keeps the best in the level
+     * if it is better than the best path of the level so far.
+     * @param level the level of the recursion
+     * @param city the index of the current city
+     * @param e the index of the road
+     * @param n the number of steps to look forward
+     */
+    private void searchRoad(int level, int city, int e, int n) {
+        int roadLength = graph.getLength(e);
+        if (roadLength > n) {
+            return;
+        }
+        int next = level + 1;
+        int to = graph.getTarget(e);
+        int v = ++visits[to];
+        if (pruning && bestSize[level] > 0) {
+            //'to' is divided by at least IMPULSIVENESS, at most 'reachBound' can follow it, and the first city
+            //of the last road is 'city' or within reach
+            int slot = reachBound(to, (n - roadLength) / minLength);
+            double max = Math.scalb((double) game.getValue(graph.getCity(to)), 1 - v) * discount[1]
+                    + boundValue[slot] + Math.max(boundMax[slot], game.getValue(graph.getCity(city)));
+            if (max * (1 + 1e-9) < bestValue[level]) {
+                visits[to]--;
+                return;
+            }
+        }
+        if (table != null) {
+            hash ^= table.visitKey(to, v - 1) ^ table.visitKey(to, v);
+            search(next, to, n - roadLength);
+            hash ^= table.visitKey(to, v - 1) ^ table.visitKey(to, v);
+        } else {
+            search(next, to, n - roadLength);
+        }
+        visits[to]--;
+        if (aborted) {
+            return;
+        }
+
+        //Extend the best path from 'to' with road e (in the same order as PlayerPath.addRoad)
+        int size = bestSize[next];
+        double value = bestValue[next];
+        if (payoffs != null) {
+            if (size == 0) {
+                value += PlayerPath.discount(payoffs.stay(city, v), 1, 0);
+            }
+            value += PlayerPath.discount(payoffs.arrival(to, v), 1, size + 1);
+        } else {
+            if (size == 0) {
+                value += PlayerPath.discount(game.getValue(graph.getCity(city)), v, 0);
+            }
+            value += PlayerPath.discount(game.getValue(graph.getCity(to)), v, size + 1);
+        }
+        int length = bestLength[next] + roadLength;
+
+        if (better(level, value, length, e)) {
+            bestValue[level] = value;
+            bestLength[level] = length;
+            bestSize[level] = size + 1;
+            bestRoads[level][0] = e;
+            bestPenalties[level][0] = v;
+            System.arraycopy(bestRoads[next], 0, bestRoads[level], 1, size);
+            System.arraycopy(bestPenalties[next], 0, bestPenalties[level], 1, size);
+        }
+        if (level == 0) {
+            completedRoads++;
+        }
+    }
+
+    /**
+     * Returns the number of roads of the best path of the last search.
+     * @return the number of roads (0 if no road can be travelled)
+     */
+    int getBestSize() {
+        return bestSize[0];
+    }
+
+    /**
+     * Returns the roads of the best path of the last search (the first getBestSize() entries).
+     * The array is overwritten by the next search.
+     * @return the indices of the roads in the RoadGraph
+     */
+    int[] getBestRoads() {
+        return bestRoads[0];
+    }
+
+    /**
+     * Returns the visits of the cities of the best path of the last search (see PlayerPath.addRoad).
+     * The array is overwritten by the next search.
+     * @return the visits of the cities
+     */
+    int[] getBestPenalties() {
+        return bestPenalties[0];
+    }
+
+    /**
+     * Returns the number of first roads which were searched completely in the last search.
+     * @return the number of roads (every road which can be travelled, if the search was completed)
+     */
+    int getCompletedRoads() {
+        return completedRoads;
+    }
+
+    /**
+     * Computes the largest possible value of the cities at the end of at most k roads from a city (see the class
+     * comment, in boundValue), and the largest value of a city within reach (in boundMax). The cities within reach
+     * are those at a distance of less than (k + 1) * minLength, and the city itself if it can be visited again
+     * (k >= 2). The values are taken from a heap, where every value taken is replaced by its half (the value of the
+     * next visit). The bounds of a search are cached in a slot determined by the city and k.
+     * @param city the index of the city
+     * @param k the number of roads
+     * @return the slot of the cache which has the bounds
+     */
+    private int reachBound(int city, int k) {
+        long key = ((long) city << 32) | k;
+        int slot = (int) RandomStreams.mix(key) & (boundKeys.length - 1);
+        if (boundStamp[slot] == stamp && boundKeys[slot] == key) {
+            return slot;
+        }
+        int[] cities = nearest.getCities(city);
+        int[] distances = nearest.getDistances(city);
+        if (heap.length <= cities.length) {
+            heap = new double[cities.length + 1];
+        }
+        int radius = (k + 1) * minLength - 1;
+        int size = 0;
+        double max = Math.max(0, game.getValue(graph.getCity(city)));
+        if (k >= 2 && max > 0) {
+            heap[size++] = max;
+        }
+        for (int i = 0; i < cities.length && distances[i] <= radius; i++) {
+            double value = game.getValue(graph.getCity(cities[i]));
+            if (value > 0) {
+                heap[size++] = value;
+                max = Math.max(max, value);
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, size, i);
+        }
+        double sum = 0;
+        for (int i = 1; i <= k && size > 0; i++) {
+            sum += heap[0] * discount[i];
+            heap[0] /= 2;
+            siftDown(heap, size, 0);
+        }
+        boundKeys[slot] = key;
+        boundValue[slot] = sum;
+        boundMax[slot] = max;
+        boundStamp[slot] = stamp;
+        return slot;
+    }
+
+    /**
+     * Moves an element of a max-heap down to its place.
+     */
+    private static void siftDown(double[] heap, int size, int i) {
+        double value = heap[i];
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * Determines whether a path is better than the best path of a level (see PlayerPath.compareTo).
+     * @param level the level of the recursion
+     * @param value the value of the path
+     * @param length the length of the path
+     * @param road the index of the first road of the path
+     * @return true if the path is better
+     */
+    private boolean better(int level, double value, int length, int road) {
+        if (value > bestValue[level]) { return true; }
+        if (value < bestValue[level]) { return false; }
+        if (length < bestLength[level]) { return true; }
+        if (length > bestLength[level]) { return false; }
+        return graph.getRoad(road).compareTo(graph.getRoad(bestRoads[level][0])) == 1;
+    }
+
+    /**
+     * Makes room for a search of n steps in a given graph.
+     * Does nothing if the graph is the same as in the last search and the arrays are large enough.
+     * @param graph the graph to search
+     * @param n the number of steps to look forward
+     */
+    private void prepare(RoadGraph graph, int n) {
+        if (this.graph != graph) {
+            this.graph = graph;
+            minLength = Integer.MAX_VALUE;
+            for (int e = 0; e < graph.getRoadCount(); e++) {
+                minLength = Math.min(minLength, graph.getLength(e));
+            }
+            visits = new int[graph.getCityCount()];
+            bestValue = null;
+        }
+        //Every road has length at least 'minLength', so no path has more than n / minLength roads
+        int levels = (graph.getRoadCount() == 0 ? 0 : n / minLength) + 2;
+        if (bestValue == null || bestValue.length < levels) {
+            bestValue = new double[levels];
+            bestLength = new int[levels];
+            bestSize = new int[levels];
+            bestRoads = new int[levels][levels];
+            bestPenalties = new int[levels][levels];
+            if (pruning) {
+                preparePruning(levels);
+            }
+        }
+    }
+
+    /**
+     * Makes room for the bounds of a search of a given number of levels (the cities within reach are found again,
+     * as a deeper search reaches further).
+     * @param levels the number of levels of the arrays
+     */
+    private void preparePruning(int levels) {
+        int cities = graph.getCityCount();
+        discount = new double[levels + 1];
+        for (int k = 0; k <= levels; k++) {
+            discount[k] = 1 / Math.pow(PlayerPath.IMPULSIVENESS, k);
+        }
+        //No path of the search travels further than 'levels - 2' roads from a city
+        nearest = new NearestCities(graph, (int) Math.min(Integer.MAX_VALUE, (long) (levels - 1) * minLength));
+        heap = new double[16];
+        int slots = Integer.highestOneBit((int) Math.max(1, Math.min(BOUND_SLOTS, (long) cities * levels)));
+        boundKeys = new long[slots];
+        boundValue = new double[slots];
+        boundMax = new double[slots];
+        boundStamp = new int[slots];
+    }
+}
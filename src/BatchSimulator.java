@@ -0,0 +1,153 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many complete games without the GUI and reports the final money of each kind of player.
+ * The map is read once and shared by all games (see Game(Game, int, Settings)), so only the values of
+ * the cities and the players are allocated per game. The seeds are spread over a fixed pool of threads.
+ * Every game has its own Game object (and thereby its own Random), so the result of a seed
+ * is the same no matter how many threads are used. The games are advanced from one arrival
+ * to the next (see Game.advance), which gives the same result as stepping one step at a time.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class BatchSimulator {
+    private Game map;
+    private Settings settings;
+
+    /**
+     * Creates a batch simulator for a given map.
+     * @param map the lines of the map file
+     * @param settings the settings to be used by every game
+     */
+    public BatchSimulator(List<String> map, Settings settings) {
+        this.map = Game.fromLines(map, settings);
+        this.settings = settings;
+    }
+
+    /**
+     * Plays a complete game with a given seed.
+     * @param seed the seed of the game
+     * @return the finished game
+     */
+    public Game play(int seed) {
+        Game game = new Game(map, seed, new Settings(settings));
+        game.addDefaultPlayers();
+        //addDefaultPlayers draws the starting positions from the Random, and reset draws the seed of the game from it,
+        //so the Random is seeded again to make the game depend on the seed only
+        game.getRandom().setSeed(seed);
+        game.reset();
+        while (game.ongoing()) {
+            game.advance();
+        }
+        return game;
+    }
+
+    /**
+     * Plays the games with seeds firstSeed, ..., firstSeed + games - 1 on a number of threads.
+     * @param firstSeed the seed of the first game
+     * @param games the number of games to play
+     * @param threads the number of threads to use
+     * @return the results of all players, by player name
+     */
+    public Map<String, Result> run(int firstSeed, int games, int threads) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Game>> futures = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                int seed = firstSeed + i;
+                futures.add(pool.submit(() -> play(seed)));
+            }
+            //Collect the results in seed order, so the aggregate does not depend on the scheduling
+            Map<String, Result> results = new TreeMap<>();
+            for (Future<Game> future : futures) {
+                for (Player p : future.get().getPlayers()) {
+                    //The GUI player never moves without the GUI
+                    if (p instanceof GUIPlayer) {
+                        continue;
+                    }
+                    results.computeIfAbsent(p.getName(), k -> new Result()).add(p.getMoney());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs a batch from the command line.
+     * @param args [number of games] [number of threads] [first seed]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int firstSeed = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        BatchSimulator simulator = new BatchSimulator(Files.readAllLines(Paths.get("network.dat")), Game.loadSettings());
+        long start = System.nanoTime();
+        Map<String, Result> results = simulator.run(firstSeed, games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(games + " games on " + threads + " threads in " + String.format("%.2f", seconds) + " s ("
+                + String.format("%.1f", games / seconds) + " games/s)");
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            System.out.println(entry.getKey() + "\t" + entry.getValue());
+        }
+    }
+
+    /**
+     * The aggregated final money of one kind of player.
+     */
+    public static class Result {
+        private int games;
+        private long total;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        /**
+         * Adds the final money of a single game.
+         * @param money the final money
+         */
+        public void add(int money) {
+            games++;
+            total += money;
+            min = Math.min(min, money);
+            max = Math.max(max, money);
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public double getAverage() {
+            return games == 0 ? 0 : (double) total / games;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "avg " + String.format("%.2f", getAverage()) + "\tmin " + min + "\tmax " + max + "\ttotal " + total;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that a BatchSimulator plays the same games as a loaded Game, no matter how many threads are used
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class BatchSimulatorTest {
+    private BatchSimulator simulator;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        //The Settings of 'settings.dat' are used, like the Settings of Game.fromFile
+        simulator = new BatchSimulator(Files.readAllLines(Paths.get("network.dat")), Game.loadSettings());
+    }
+
+    /**
+     * Describes the money and positions of all players and the values of the cities they are between
+     * (the values are those of the Game, as the games of a BatchSimulator share the Cities of its map)
+     */
+    private String state(Game game) {
+        StringBuilder sb = new StringBuilder(game.getStepsLeft() + ":");
+        for (Player p : game.getPlayers()) {
+            Position pos = p.getPosition();
+            sb.append(p.getName()).append(' ').append(p.getMoney()).append(' ')
+              .append(pos.getFrom().getName()).append(" (").append(game.getValue(pos.getFrom())).append(") -> ")
+              .append(pos.getTo().getName()).append(" (").append(game.getValue(pos.getTo())).append(") : ")
+              .append(pos.getDistance()).append('/').append(pos.getTotal()).append(';');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void play() {
+        for (int seed : new int[] {0, 1, 42}) {
+            //A loaded game stepped one step at a time with the same seed
+            Game game = Game.fromFile("network.dat");
+            game.getRandom().setSeed(seed);
+            game.reset();
+            while (game.ongoing()) {
+                game.step();
+            }
+            assertEquals(state(game), state(simulator.play(seed)), "seed " + seed);
+        }
+    }
+
+    @Test
+    public void threads() throws InterruptedException, ExecutionException {
+        Map<String, BatchSimulator.Result> one = simulator.run(10, 12, 1);
+        Map<String, BatchSimulator.Result> many = simulator.run(10, 12, 3);
+        assertEquals(one.keySet(), many.keySet());
+        assertEquals(3, one.size());
+        for (String name : one.keySet()) {
+            BatchSimulator.Result a = one.get(name);
+            BatchSimulator.Result b = many.get(name);
+            assertEquals(12, a.getGames(), name);
+            assertEquals(a.getGames(), b.getGames(), name);
+            assertEquals(a.getTotal(), b.getTotal(), name);
+            assertEquals(a.getMin(), b.getMin(), name);
+            assertEquals(a.getMax(), b.getMax(), name);
+        }
+    }
+}
@@ -14,21 +14,39 @@ public class BorderCity extends City{
         //Initialize toll to 0 for calculating return value
         int tollToBePaid = 0;
         //Initialize variables
+        Game game = p.getGame();
         int playerMoney = p.getMoney();
-        Country fromCountry = p.getFromCountry();
-        //If the country the player is coming from is not the current country then pay toll
-        if(!fromCountry.equals(getCountry())){
+        //If the player comes along a border road (from another country) then pay toll
+        if(crossesBorder(game, p.getPosition().getFrom())){
             //Divide the integer [0-100] by 100 to get percentage
-            double tollToBePaidInPct = (double)getCountry().getGame().getSettings().getTollToBePaid()/100;
+            double tollToBePaidInPct = (double)game.getSettings().getTollToBePaid()/100;
             //Multiply the toll with the money before the bonus is added
             tollToBePaid = (int) Math.floor(tollToBePaidInPct * (double)playerMoney);
             p.setMoney(playerMoney - tollToBePaid);
             //Increase the value of the city with the toll
-            changeValue(tollToBePaid);
+            game.changeValue(this, tollToBePaid);
         }
         //Calculate bonus
-        int bonus = super.arrive();
+        int bonus = super.arrive(game);
         //Returns the bonus - toll
         return bonus - tollToBePaid;
     }
+
+    /**
+     * Determines whether a player coming from a city crosses a border, by looking the road up in the border road
+     * registry of the RoadGraph (or by comparing the countries, if the cities are not part of the graph)
+     * @param game the game in which the city is visited
+     * @param from the city the player comes from
+     * @return true if the player comes from another country
+     */
+    private boolean crossesBorder(Game game, City from){
+        RoadGraph graph = game.getGraph();
+        if(graph.contains(from) && graph.contains(this)){
+            int road = graph.findRoad(from.getId(), getId());
+            if(road >= 0){
+                return graph.isBorderRoad(road);
+            }
+        }
+        return !from.getCountry().equals(getCountry());
+    }
 }
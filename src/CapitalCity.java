@@ -13,12 +13,13 @@ public class CapitalCity extends BorderCity{
         //Calls the super methods arrive for paying toll
         int newBonus = super.arrive(p);
         //Get the money after paying toll
+        Game game = p.getGame();
         int money = p.getMoney();
         //Calculates the spent money being between 0 and the new money
-        int spentMoney = getCountry().getGame().getRandom().nextInt(money + 1);
+        int spentMoney = game.getRandom(this).nextInt(money + 1);
         //Sets the players money and changes the value of the city
         p.setMoney(money - spentMoney);
-        changeValue(spentMoney);
+        game.changeValue(this, spentMoney);
         return newBonus - spentMoney;
     }
 }
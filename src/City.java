@@ -9,7 +9,9 @@ public class City implements Comparable<City> {
     private String name;
     private int value;
     private int initialValue;
+    private int version;
     private Country country;
+    private int id = -1;
 
     /**
      * Creates a city with a name and a value.
@@ -29,8 +31,18 @@ public class City implements Comparable<City> {
      * @return the bonus value
      */
     public int arrive() {
-        int bonus = country.bonus(value);
-        value -= bonus;
+        return arrive(country.getGame());
+    }
+
+    /**
+     * Arrives in the city in a given game (which may share the city with other games).
+     * The value of the city in that game is reduced by the bonus.
+     * @param game the game in which the city is visited
+     * @return the bonus value
+     */
+    public int arrive(Game game) {
+        int bonus = country.bonus(game, game.getRandom(this), game.getValue(this));
+        game.changeValue(this, -bonus);
         return bonus;
     }
 
@@ -39,7 +51,7 @@ public class City implements Comparable<City> {
      * @param p the player arriving in the city
      * @return the arrive method giving the bonus value
      */
-    public int arrive (Player p) { return arrive(); }
+    public int arrive (Player p) { return arrive(p.getGame()); }
 
     /**
      * Returns the country of the city.
@@ -49,6 +61,22 @@ public class City implements Comparable<City> {
         return country;
     }
 
+    /**
+     * Returns the id of the city in the RoadGraph of its game.
+     * @return the id of the city, or -1 if no graph has been built
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id of the city (is called when a RoadGraph is built).
+     * @param id: the id of the city
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * Returns the name of the city.
      * @return the name of the city
@@ -58,7 +86,8 @@ public class City implements Comparable<City> {
     }
 
     /**
-     * Returns the value of the city.
+     * Returns the value of the city in the game of its country.
+     * Games which share the map of that game keep their own values (see Game.getValue).
      * @return the value of the city
      */
     public int getValue() {
@@ -79,6 +108,8 @@ public class City implements Comparable<City> {
      */
     public void changeValue(int amount) {
         value += amount;
+        version++;
+        changed();
     }
 
     /**
@@ -86,6 +117,26 @@ public class City implements Comparable<City> {
      */
     public void reset() {
         value = initialValue;
+        version++;
+        changed();
+    }
+
+    /**
+     * Tells the game of the country that the value has changed (see Game.valueChanged).
+     */
+    private void changed() {
+        if (country != null && country.getGame() != null) {
+            country.getGame().valueChanged(this);
+        }
+    }
+
+    /**
+     * Returns the version of the value of the city in the game of its country,
+     * which is increased every time the value is changed or reset (see Game.getVersion).
+     * @return the version of the value
+     */
+    public int getVersion() {
+        return version;
     }
 
     /**
@@ -97,6 +97,21 @@ public class CityTest {
         assertEquals(60 + 50,cityB.getValue());
     }
 
+    /**
+     * Test that the version is increased by changeValue, arrive and reset
+     */
+    @Test
+    public void version(){
+        int version = cityA.getVersion();
+        cityA.changeValue(0);
+        assertEquals(version + 1, cityA.getVersion());
+        cityA.arrive();
+        assertEquals(version + 2, cityA.getVersion());
+        assertEquals(version + 2, game.getVersion(cityA));
+        cityA.reset();
+        assertEquals(version + 3, cityA.getVersion());
+    }
+
     /**
      * Test the toString method
      */
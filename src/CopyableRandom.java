@@ -0,0 +1,73 @@
+import java.util.Random;
+
+/**
+ * A java.util.Random whose state can be copied, so a forked Game continues with the same random numbers.
+ * It uses the same linear congruential generator as java.util.Random (all methods of Random are built on next),
+ * so it returns exactly the same numbers as a java.util.Random with the same seed.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class CopyableRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;     // The 48 bits of the generator (no initializer, as the constructor of Random calls setSeed)
+
+    /**
+     * Creates a generator with a given seed.
+     * @param seed the seed
+     */
+    public CopyableRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Creates a generator in the same state as another generator.
+     * @param other the generator to copy
+     */
+    public CopyableRandom(CopyableRandom other) {
+        super(0);
+        state = other.state;
+    }
+
+    /**
+     * Returns a copy of this generator, which returns the same numbers as this generator from now on.
+     * @return the copy
+     */
+    public CopyableRandom copy() {
+        return new CopyableRandom(this);
+    }
+
+    /**
+     * Gets the state of this generator (48 bits), e.g. to store it in a keyframe of a ReplayLog.
+     * @return the state
+     */
+    long getState() {
+        return state;
+    }
+
+    /**
+     * Creates a generator in a state returned by getState.
+     * @param state the state
+     * @return the generator
+     */
+    static CopyableRandom fromState(long state) {
+        CopyableRandom random = new CopyableRandom(0);
+        random.state = state & MASK;
+        return random;
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+}
@@ -0,0 +1,56 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the various methods and variables of CopyableRandom
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class CopyableRandomTest {
+
+    @Test
+    public void sameNumbers() {
+        //Returns the same numbers as java.util.Random
+        for (long seed : new long[]{0, 1, -5, 123456789012L}) {
+            Random expected = new Random(seed);
+            Random actual = new CopyableRandom(seed);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(expected.nextInt(1 + i), actual.nextInt(1 + i));
+                assertEquals(expected.nextInt(), actual.nextInt());
+                assertEquals(expected.nextLong(), actual.nextLong());
+                assertEquals(expected.nextDouble(), actual.nextDouble());
+                assertEquals(expected.nextBoolean(), actual.nextBoolean());
+            }
+            expected.setSeed(seed + 1);
+            actual.setSeed(seed + 1);
+            assertEquals(expected.nextInt(100), actual.nextInt(100));
+        }
+    }
+
+    @Test
+    public void copy() {
+        CopyableRandom random = new CopyableRandom(7);
+        random.nextInt();
+        CopyableRandom copy = random.copy();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(random.nextInt(50), copy.nextInt(50));
+        }
+        //The copy is independent of the original
+        copy.nextInt();
+        assertNotEquals(random.nextLong(), copy.nextLong());
+    }
+
+    @Test
+    public void state() {
+        CopyableRandom random = new CopyableRandom(11);
+        random.nextDouble();
+        CopyableRandom restored = CopyableRandom.fromState(random.getState());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(random.nextInt(1000), restored.nextInt(1000));
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * A country with a network of cities and roads.
@@ -9,7 +10,10 @@ import java.util.*;
 public class Country {
     private String name;
     private Map<City, Set<Road>> network;
+    private Map<String, City> cities;
     private Game game;
+    private RoadGraph indexedGraph;
+    private RoadIndex roadIndex;
 
     /**
      * Creates a country with a name.
@@ -18,6 +22,7 @@ public class Country {
     public Country(String name) {
         this.name = name;
         this.network = new TreeMap<>();
+        this.cities = new HashMap<>();
     }
 
     @Override
@@ -31,6 +36,10 @@ public class Country {
      */
     public void addCity(City c) {
         network.put(c, new TreeSet<>());
+        cities.put(c.getName(), c);
+        if (game != null) {
+            game.cityAdded(this, c);
+        }
     }
 
     /**
@@ -57,16 +66,72 @@ public class Country {
         if (from.equals(to)) {
             return position(from);
         }
-        Road road = getRoads(from).stream().filter(r -> r.getTo().equals(to)).findFirst().orElse(null);
-        if(road == null){
-            road = getRoads(to).stream().filter(r -> r.getFrom().equals(from)).findFirst().orElse(null);
-        }
+        Road road = getRoad(from, to);
         if (road == null) {
             return position(from);
         }
         return new Position(from, to, road.getLength());
     }
 
+    /**
+     * Finds the road from a city in this country to another city.
+     * Uses a hash index of the roads of this country if the cities are part of the RoadGraph of the game.
+     * @param from the city where the road starts
+     * @param to the city where the road ends
+     * @return the shortest road between the cities, or null if there is no such road
+     */
+    public Road getRoad(City from, City to) {
+        RoadGraph graph = game == null ? null : game.getGraph();
+        if (graph != null && from.getCountry() == this && graph.contains(from) && graph.contains(to)) {
+            int road = getRoadIndex(graph).find(from.getId(), to.getId());
+            return road < 0 ? null : graph.getRoad(road);
+        }
+        for (Road road : getRoads(from)) {
+            if (road.getTo().equals(to)) {
+                return road;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the roads starting in this country, building it if the graph has changed.
+     * Is called by Game before the map is shared, so games on other threads only read the index.
+     * @param graph the current graph of the game
+     * @return the road index of this country
+     */
+    RoadIndex getRoadIndex(RoadGraph graph) {
+        if (indexedGraph != graph) {
+            int count = 0;
+            for (City city : network.keySet()) {
+                count += network.get(city).size();
+            }
+            roadIndex = new RoadIndex(count);
+            for (City city : network.keySet()) {
+                if (graph.contains(city)) {
+                    int id = city.getId();
+                    for (int e = graph.getFirstRoad(id); e < graph.getFirstRoad(id + 1); e++) {
+                        roadIndex.add(id, graph.getTarget(e), e);
+                    }
+                }
+            }
+            indexedGraph = graph;
+        }
+        return roadIndex;
+    }
+
+    /**
+     * Adds a single road starting in a city of this country (is used to build a map from a MapImage,
+     * which has every direction of a road already).
+     * @param road the road to add
+     */
+    void addRoad(Road road) {
+        network.get(road.getFrom()).add(road);
+        if (game != null) {
+            game.networkChanged();
+        }
+    }
+
     /**
      * Adds roads between two cities with a given length.
      * @param a the first city
@@ -83,6 +148,9 @@ public class Country {
         if (a.getCountry() != this && b.getCountry() != this) {
             return;
         }
+        if (game != null) {
+            game.networkChanged();
+        }
         if (a.getCountry() == this && b.getCountry() != this) {
             //City a is in this country and b is in another
             Road road = new Road(a, b, length);
@@ -106,10 +174,21 @@ public class Country {
      * @return a random bonus value between 0 and the given value
      */
     public int bonus(int value) {
+        return bonus(game, game.getRandom(), value);
+    }
+
+    /**
+     * Calculates a bonus value based on a given value in a given game (which may share this country with other games).
+     * @param game the game in which the bonus is given
+     * @param random the random generator to draw from (see Game.getRandom(City))
+     * @param value the maximum value of the bonus
+     * @return a random bonus value between 0 and the given value
+     */
+    public int bonus(Game game, RandomGenerator random, int value) {
         if (value <= 0) {
             return 0;
         }
-        return game.getRandom().nextInt(value + 1);
+        return random.nextInt(value + 1);
     }
 
     public Game getGame() {
@@ -134,12 +213,7 @@ public class Country {
      * @return the city with the given name, or null if no such city exists
      */
     public City getCity(String name) {
-        for (City city : network.keySet()) {
-            if (city.getName().equals(name)) {
-                return city;
-            }
-        }
-        return null;
+        return cities.get(name);
     }
 
     /**
@@ -0,0 +1,129 @@
+import java.time.Duration;
+import java.util.IntSummaryStatistics;
+
+/**
+ * Searches deeper and deeper (like BacktrackingPlanner) until a time budget per decision is used up, and chooses
+ * the best road found so far, so a decision takes about the same time wherever the player stands.
+ * The first search (of STEP steps) is always completed, and every deeper search starts with the first road
+ * of the previous best path. If a search is aborted after that road was searched completely, the best of the
+ * roads searched completely is chosen (it is at least as good as the previous road at the deeper depth).
+ * The reached depth of every decision is kept, so the budget can be tuned to the computer.
+ * As the depth depends on the speed of the computer, the decisions are not reproducible from the seed alone.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class DeepeningPlanner extends Planner {
+    /** Number of steps a search is deeper than the previous one. */
+    public static final int STEP = 10;
+
+    private final BacktrackingPlanner search = new BacktrackingPlanner(0);
+    private final long budget;          // Time per decision in nanoseconds
+    private int lastDepth;              // Depth of the last completed search of the last decision
+    private final IntSummaryStatistics depths = new IntSummaryStatistics(); // Depths of all decisions
+
+    private int bestSize;               // Best path of the last decision (copied from the search)
+    private int[] bestRoads = new int[0];
+    private int[] bestPenalties = new int[0];
+
+    /**
+     * Creates a new deepening planner.
+     * @param maxDepth the maximum number of steps to look forward
+     * @param budget the time per decision
+     */
+    public DeepeningPlanner(int maxDepth, Duration budget) {
+        super(maxDepth);
+        this.budget = budget.toNanos();
+    }
+
+    @Override
+    public Planner copy() {
+        return new DeepeningPlanner(getMaxDepth(), getBudget());
+    }
+
+    /**
+     * Returns the time per decision.
+     * @return the time per decision
+     */
+    public Duration getBudget() {
+        return Duration.ofNanos(budget);
+    }
+
+    /**
+     * Returns the depth (in steps) of the last completed search of the last decision.
+     * @return the depth
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Returns the statistics of the depths of all decisions of this planner.
+     * @return the statistics of the depths
+     */
+    public IntSummaryStatistics getDepths() {
+        return depths;
+    }
+
+    @Override
+    public City nextCity(SmartPlayer player, City c, int n) {
+        deepen(player, c, Math.min(getMaxDepth(), n));
+        if (bestSize == 0) {
+            return c;
+        }
+        RoadGraph graph = player.getGame().getGraph();
+        return graph.getCity(graph.getTarget(bestRoads[0]));
+    }
+
+    @Override
+    public PlayerPath bestPath(SmartPlayer player, City c, int n) {
+        deepen(player, c, n);
+        RoadGraph graph = player.getGame().getGraph();
+        PlayerPath p = new PlayerPath(player);
+        for (int i = bestSize - 1; i >= 0; i--) {
+            p.addRoad(graph.getRoad(bestRoads[i]), bestPenalties[i]);
+        }
+        return p;
+    }
+
+    /**
+     * Searches deeper and deeper from a city until n steps are searched or the budget is used up,
+     * and keeps the best path found.
+     * @param player the player who is searching
+     * @param c the current city
+     * @param n the number of steps to look forward
+     */
+    private void deepen(SmartPlayer player, City c, int n) {
+        long deadline = System.nanoTime() + budget;
+        int depth = Math.min(STEP, n);
+        search.search(player, c, depth, -1, Long.MAX_VALUE);
+        keepBest();
+        lastDepth = depth;
+        while (depth < n && System.nanoTime() < deadline) {
+            depth = Math.min(depth + STEP, n);
+            int first = bestSize == 0 ? -1 : bestRoads[0];
+            if (search.search(player, c, depth, first, deadline)) {
+                keepBest();
+                lastDepth = depth;
+            } else {
+                if (search.getCompletedRoads() > 0) {
+                    keepBest();
+                }
+                break;
+            }
+        }
+        depths.accept(lastDepth);
+    }
+
+    /**
+     * Copies the best path of the last search.
+     */
+    private void keepBest() {
+        bestSize = search.getBestSize();
+        if (bestRoads.length < bestSize) {
+            bestRoads = new int[bestSize];
+            bestPenalties = new int[bestSize];
+        }
+        System.arraycopy(search.getBestRoads(), 0, bestRoads, 0, bestSize);
+        System.arraycopy(search.getBestPenalties(), 0, bestPenalties, 0, bestSize);
+    }
+}
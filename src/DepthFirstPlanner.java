@@ -0,0 +1,74 @@
+import java.util.HashMap;
+
+/**
+ * Finds the best path by a depth-first search over every path within the horizon.
+ * This is the original search of SmartPlayer.
+ * @author Nikolaj Ignatieff Schwartzbach.
+ * @version August 2019.
+ */
+public class DepthFirstPlanner extends Planner {
+
+    /**
+     * Creates a new depth-first planner.
+     * @param maxDepth The number of steps to look forward.
+     */
+    public DepthFirstPlanner(int maxDepth) {
+        super(maxDepth);
+    }
+
+    @Override
+    public Planner copy() {
+        return new DepthFirstPlanner(getMaxDepth());
+    }
+
+    @Override
+    public PlayerPath bestPath(SmartPlayer player, City c, int n) {
+        if(player.getExpectedPayoffs() != null) {
+            player.getExpectedPayoffs().update(player);
+        }
+        HashMap<City, Integer> visited = new HashMap<City, Integer>();
+        visited.put(c, 1);
+        return maximizeValue(player, visited, c, n);
+    }
+
+    /**
+     * Calculates the n-steps optimal route (DFS).
+     * @param player    The player who is searching.
+     * @param visits    The number of times each city has been visited.
+     * @param c         The current city.
+     * @param n         The number of steps to look forward.
+     */
+    private PlayerPath maximizeValue(SmartPlayer player, HashMap<City, Integer> visits, City c, int n) {
+        // Initialize best path.
+        PlayerPath p = new PlayerPath(player);
+        
+        // Consider each road from current city.
+        for(Road r : c.getCountry().getRoads(c)) {
+            
+            // Only consider roads we can reach in due time.
+            if(r.getLength() <= n) {
+                
+                // Prepare recursive call. Update 'visits'.
+                HashMap<City, Integer> newVisits = new HashMap<City, Integer>(visits);
+                City to = r.getTo();
+                int v = 0;
+                if(newVisits.containsKey(to)) {
+                    v = newVisits.get(to);
+                }
+                newVisits.put(to, ++v);
+
+                // Call procedure recursively.
+                PlayerPath subPlayerPath = maximizeValue(player, newVisits, to, n - r.getLength());
+                subPlayerPath.addRoad(r, v);
+                
+                // If the new path is better, substitute it.
+                if(subPlayerPath.compareTo(p) == 1) {
+                    p = subPlayerPath;
+                }
+            }
+        }
+
+        // Return the best path.
+        return p;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * The expected payoffs of arriving in the cities of a game, for the expectimax evaluation of SmartPlayer.
+ * An arrival is a chance event: the bonus is drawn uniformly from [0, value] (so it is value / 2 on average),
+ * and in a MafiaCountry the player is robbed instead with probability (risk + 1) / 101 (see MafiaCountry.bonus)
+ * of (minRobbery + maxRobbery) / 2 on average. These are the payoffs of City.arrive(Game), which is what a Player
+ * gets when it arrives (the tolls and expenses of BorderCity and CapitalCity are not charged by the game, so they
+ * are not counted either).
+ *
+ * The shares which only depend on the Settings are computed once per version of the settings, and the expected
+ * bonuses once per version of the value of a city, so a search only reads cached doubles. Repeated visits halve
+ * the expected bonus (like the values of PlayerPath), but not the robbery, which is the same on every visit.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class ExpectedPayoffs {
+    private Game game;              // Game of the cached values
+    private RoadGraph graph;        // Graph for which the arrays are built
+    private Settings settings;      // Settings of the cached shares
+    private int settingsVersion;    // Version of those settings
+
+    private double[] bonusShare;    // Expected share of the value paid as bonus in every city
+    private double[] robbery;       // Expected loss to robbery in every city
+
+    private int[] seen;             // Version of the value of every city of the cached bonus
+    private double[] bonus;         // Expected bonus of the first visit of every city
+    private long key;               // Hash of the settings of the cached payoffs
+
+    /**
+     * Brings the cached payoffs up to date with the game and settings of a player.
+     * @param player the player who is searching
+     */
+    public void update(Player player) {
+        Game game = player.getGame();
+        Settings settings = game.getSettings();
+        boolean all = game != this.game;
+        this.game = game;
+        if (game.getGraph() != graph) {
+            prepare(game.getGraph());
+            all = true;
+        }
+        if (settings != this.settings || settings.getVersion() != settingsVersion) {
+            share(settings);
+            all = true;
+        }
+        for (int id = 0; id < seen.length; id++) {
+            City c = graph.getCity(id);
+            int version = game.getVersion(c);
+            if (all || version != seen[id]) {
+                bonus[id] = bonusShare[id] * Math.max(0, game.getValue(c));
+                seen[id] = version;
+            }
+        }
+        long h = 1;
+        for (int x : new int[] {settings.getRisk(), settings.getMinRobbery(), settings.getMaxRobbery()}) {
+            h = h * 31 + x;
+        }
+        key = RandomStreams.mix(h);
+    }
+
+    /**
+     * Creates the arrays of a graph.
+     */
+    private void prepare(RoadGraph graph) {
+        this.graph = graph;
+        int size = graph.getCityCount();
+        bonusShare = new double[size];
+        robbery = new double[size];
+        seen = new int[size];
+        bonus = new double[size];
+    }
+
+    /**
+     * Computes the shares of the bonus and the expected robbery of every city from the settings.
+     */
+    private void share(Settings settings) {
+        this.settings = settings;
+        settingsVersion = settings.getVersion();
+        double risk = Math.max(0, Math.min(101, settings.getRisk() + 1)) / 101.0;
+        double loss = (settings.getMinRobbery() + settings.getMaxRobbery()) / 2.0;
+        for (int id = 0; id < bonusShare.length; id++) {
+            boolean mafia = graph.getCity(id).getCountry() instanceof MafiaCountry;
+            bonusShare[id] = mafia ? (1 - risk) / 2 : 0.5;
+            robbery[id] = mafia ? -risk * loss : 0;
+        }
+    }
+
+    /**
+     * Returns the expected payoff of arriving in a city.
+     * @param city the index of the city
+     * @param visits the number of visits of the city (including this one)
+     * @return the expected payoff
+     */
+    public double arrival(int city, int visits) {
+        return Math.scalb(bonus[city], 1 - visits) + robbery[city];
+    }
+
+    /**
+     * Returns the expected bonus of a city which is counted without arriving in it (the first city of the last road
+     * of a path, see PlayerPath.valueFrom), so there is no robbery.
+     * @param city the index of the city
+     * @param visits the number of visits
+     * @return the expected bonus
+     */
+    public double stay(int city, int visits) {
+        return Math.scalb(bonus[city], 1 - visits);
+    }
+
+    /**
+     * Returns a hash of the settings of the cached payoffs (the values are hashed separately),
+     * so stored search results of other payoffs are not used.
+     * @return the hash
+     */
+    public long getKey() {
+        return key;
+    }
+}
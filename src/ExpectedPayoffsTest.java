@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the expected payoffs of the expectimax evaluation of SmartPlayer
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class ExpectedPayoffsTest {
+    private Game game;
+    private SmartPlayer player;
+    private ExpectedPayoffs payoffs;
+    private City aarhus, kobenhavn, aalborg, stockholm, oslo;
+
+    @BeforeEach
+    public void setUp() {
+        //A small map with cities of every kind, whose values and roads are chosen by the tests
+        game = new Game(0, new Settings());
+        Country denmark = new Country("Denmark");
+        Country norway = new Country("Norway");
+        Country sweden = new MafiaCountry("Sweden");
+        aarhus = new City("Aarhus", 250, denmark);
+        kobenhavn = new CapitalCity("København", 100, denmark);
+        aalborg = new BorderCity("Aalborg", 80, denmark);
+        oslo = new City("Oslo", 125, norway);
+        stockholm = new CapitalCity("Stockholm", 190, sweden);
+        denmark.addCity(aarhus);
+        denmark.addCity(kobenhavn);
+        denmark.addCity(aalborg);
+        norway.addCity(oslo);
+        sweden.addCity(stockholm);
+        game.addCountry(denmark);
+        game.addCountry(norway);
+        game.addCountry(sweden);
+        game.addRoads(aarhus, kobenhavn, 3);
+        game.addRoads(aarhus, aalborg, 2);
+        game.addRoads(aalborg, oslo, 4);
+        game.addRoads(oslo, stockholm, 5);
+        game.addRoads(kobenhavn, stockholm, 6);
+        player = new SmartPlayer(new Position(aarhus, aarhus, 0));
+        game.getPlayers().add(player);
+        player.setMoney(1000);
+        player.setExpectimax(true);
+        payoffs = player.getExpectedPayoffs();
+        payoffs.update(player);
+    }
+
+    @Test
+    public void arrival() {
+        //Half the value on average, halved again for every earlier visit
+        assertEquals(125, payoffs.arrival(aarhus.getId(), 1), 1e-9);
+        assertEquals(62.5, payoffs.arrival(aarhus.getId(), 2), 1e-9);
+        //Capitals and border cities pay their bonus like other cities (the game charges no tolls or expenses)
+        assertEquals(50, payoffs.arrival(kobenhavn.getId(), 1), 1e-9);
+        assertEquals(40, payoffs.arrival(aalborg.getId(), 1), 1e-9);
+        //In Sweden the player is robbed of 30 on average with probability 21 / 101
+        double risk = 21 / 101.0;
+        assertEquals((1 - risk) * 95 - risk * 30, payoffs.arrival(stockholm.getId(), 1), 1e-9);
+        assertEquals((1 - risk) * 47.5 - risk * 30, payoffs.arrival(stockholm.getId(), 2), 1e-9);
+        //A city which is not arrived in is not robbed
+        assertEquals((1 - risk) * 95, payoffs.stay(stockholm.getId(), 1), 1e-9);
+    }
+
+    @Test
+    public void update() {
+        long key = payoffs.getKey();
+        //Values and settings are only seen after an update
+        game.changeValue(aarhus, -50);
+        game.setSettings(new Settings(new boolean[] {true, true, true}, 20, 100, 10, 50, 2));
+        assertEquals(125, payoffs.arrival(aarhus.getId(), 1), 1e-9);
+        payoffs.update(player);
+        assertEquals(100, payoffs.arrival(aarhus.getId(), 1), 1e-9);
+        assertEquals(-30, payoffs.arrival(stockholm.getId(), 1), 1e-9);
+        assertNotEquals(key, payoffs.getKey());
+        //The money of the player does not change the payoffs
+        key = payoffs.getKey();
+        player.setMoney(0);
+        payoffs.update(player);
+        assertEquals(key, payoffs.getKey());
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Measures how many games per second can be forked from a running game on the shipped map ('network.dat'),
+ * compared to loading a new game with Game.fromFile, and how many forks per second can be played some steps ahead
+ * (as a player looking ahead would do).
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class ForkBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args [number of steps to play each fork]
+     */
+    public static void main(String[] args) {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+
+        Game game = Game.fromFile("network.dat");
+        game.getRandom().setSeed(0);
+        game.reset();
+        //Let the SmartPlayer look ahead as far as the fork is played, with the fast planner
+        for (Player p : game.getPlayers()) {
+            if (p instanceof SmartPlayer) {
+                ((SmartPlayer) p).setPlanner(new BacktrackingPlanner(steps));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            game.step();
+        }
+
+        System.out.println("operation\tper second");
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            int loads = 0;
+            while (System.nanoTime() - start < 1e9) {
+                Game.fromFile("network.dat");
+                loads++;
+            }
+            print("fromFile", loads, start);
+
+            start = System.nanoTime();
+            int forks = 0;
+            long sum = 0;
+            while (System.nanoTime() - start < 1e9) {
+                sum += game.fork().getStepsLeft();
+                forks++;
+            }
+            print("fork", forks, start);
+
+            start = System.nanoTime();
+            int played = 0;
+            while (System.nanoTime() - start < 1e9) {
+                Game fork = game.fork();
+                for (int i = 0; i < steps && fork.ongoing(); ) {
+                    i += fork.advance();
+                }
+                sum += fork.getPlayers().get(0).getMoney();
+                played++;
+            }
+            print("fork + " + steps + " steps", played, start);
+            if (sum == 42) {
+                System.out.println();
+            }
+        }
+    }
+
+    private static void print(String operation, int count, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(operation + "\t" + String.format("%.0f", count / seconds));
+    }
+}
@@ -89,8 +89,10 @@ public class GUI {
      */
     private GUI(){
         
-        //Initialize Game
+        //Initialize Game (every game is logged, and saved to 'last.log' when it finishes)
         game = Game.fromFile("network.dat");
+        game.setLogging(true);
+        game.reset();
         
         //Initialize buttons
         buttons = createButtonPanel();      
@@ -329,12 +331,15 @@ public class GUI {
                 City best = null;
                 double bestAngle = 2*Math.PI;
                 Point posPlayer = game.getPosition(playerCity);
-                for(Road r : p.getCountry().getRoads(playerCity)){
-                    Point posCity = game.getPosition(r.getTo());
+                RoadGraph graph = game.getGraph();
+                int id = playerCity.getId();
+                for(int r = graph.getFirstRoad(id); r < graph.getFirstRoad(id + 1); r++){
+                    City to = graph.getCity(graph.getTarget(r));
+                    Point posCity = game.getPosition(to);
                     double cityAngle = Math.atan2(-posCity.y + posPlayer.y, posCity.x - posPlayer.x);
                     double newAngle = angleDiff(cityAngle, currentDirection);
                     if(newAngle < bestAngle){
-                        best = r.getTo();
+                        best = to;
                         bestAngle = newAngle;
                     }
                 }
@@ -408,12 +413,6 @@ public class GUI {
     private void applyOptions() {
         //optionsShowing = false;
         options.dispatchEvent(new WindowEvent(options, WindowEvent.WINDOW_CLOSING));
-        game.reset();
-        
-        //Enabled players
-        game.getSettings().setActive(0, random.isSelected());
-        game.getSettings().setActive(1, greedy.isSelected());
-        game.getSettings().setActive(2, smart.isSelected());
         
         //Toll size & robbery
         int tollSize, riskRob = 0;
@@ -429,8 +428,16 @@ public class GUI {
             return;
         }
         
+        //Enabled players
+        game.getSettings().setActive(0, random.isSelected());
+        game.getSettings().setActive(1, greedy.isSelected());
+        game.getSettings().setActive(2, smart.isSelected());
+        
         game.getSettings().setRisk(riskRob);
         game.getSettings().setTollToBePaid(tollSize);
+        
+        //The new game is reset (and its log is started) with the new Settings
+        game.reset();
        
         
         mainFrame.setVisible(false);
@@ -818,12 +825,9 @@ class WorldPanel extends JPanel {
         g2d.setStroke(STROKE_THICK);
 
         // Draw all roads
-        for(Country country : game.getCountries()) {
-            for(City city : country.getCities()) {
-                for(Road road : country.getRoads(city)) {
-                    drawRoad(g2d, road);
-                }
-            }
+        RoadGraph graph = game.getGraph();
+        for(int r = 0; r < graph.getRoadCount(); r++) {
+            drawRoad(g2d, graph.getRoad(r), graph.isBorderRoad(r));
         }
 
         // Draw all cities
@@ -856,19 +860,20 @@ class WorldPanel extends JPanel {
      * Draws a road (including intermediate dots) on a given G2D object.
      * @param g2d   The graphics object upon which to draw.
      * @param r     The road to draw.
+     * @param border   Whether the road crosses a border (see RoadGraph.isBorderRoad).
      */
-    private void drawRoad(Graphics2D g2d, Road r) {
+    private void drawRoad(Graphics2D g2d, Road r, boolean border) {
         if(r.getFrom().getName().compareTo(r.getTo().getName()) > 0) return;
         Point posFrom = getPosition(r.getFrom()),
         posTo = getPosition(r.getTo());
 
         g2d.setColor(COLOR_ROAD);
-        if(!r.getFrom().getCountry().equals(r.getTo().getCountry()))
+        if(border)
             g2d.setColor(COLOR_BORDER_ROAD);
         g2d.drawLine(posFrom.x, posFrom.y, posTo.x, posTo.y);
 
         for(int i=0; i<r.getLength(); i++)
-            drawRoadDot(g2d, r, i);
+            drawRoadDot(g2d, r, border, i);
     }
     
     private void drawTests(Graphics2D g2d) {
@@ -955,9 +960,10 @@ class WorldPanel extends JPanel {
      * Draws the i'th road dot on the G2D object g2d.
      * @param g2d   The graphics object upon which to draw.
      * @param r     The road from which to draw a dot.
+     * @param border   Whether the road crosses a border.
      * @param i     The i'th dot is drawn.
      */
-    private void drawRoadDot(Graphics2D g2d, Road r, int i) {
+    private void drawRoadDot(Graphics2D g2d, Road r, boolean border, int i) {
         Point from = getPosition(r.getFrom()),
         to = getPosition(r.getTo());
 
@@ -968,7 +974,7 @@ class WorldPanel extends JPanel {
         int radius = ROAD_CIRCLE_RADIUS;
         Ellipse2D.Double shape = new Ellipse2D.Double(x - radius, y - radius, 2 * radius, 2 * radius);
         g2d.setColor(COLOR_ROAD);
-        if(!r.getFrom().getCountry().equals(r.getTo().getCountry()))
+        if(border)
             g2d.setColor(COLOR_BORDER_ROAD);
         g2d.fill(shape);
     }
@@ -56,11 +56,9 @@ public class GUIPlayer extends Player
     public void travelTo(City city) {
         City playerCity = getPosition().getTo();
         if(getPosition().hasArrived()) {
-            for(Road r : getCountry().getRoads(playerCity)) {
-                if(r.getTo().equals(city)) {
-                    setPosition(getCountry().readyToTravel(playerCity, city));
-                    choices = new LinkedList<>();
-                }
+            if(getCountry().getRoad(playerCity, city) != null) {
+                setPosition(getCountry().readyToTravel(playerCity, city));
+                choices = new LinkedList<>();
             }
         }
         else {
@@ -74,13 +72,43 @@ public class GUIPlayer extends Player
     }
     
     @Override
-    public boolean step(){
-        if(super.step()){
-            if(!choices.isEmpty()) {
-                travelTo(choices.remove());
-            }
-            return true;
+    public GUIPlayer copy() {
+        GUIPlayer p = (GUIPlayer) super.copy();
+        p.choices = new LinkedList<>(choices);
+        return p;
+    }
+
+    /**
+     * Gets the cities chosen by the user, which the player has not travelled to yet.
+     * @return   The queue of pending cities.
+     */
+    Queue<City> getChoices() {
+        return choices;
+    }
+
+    /**
+     * Replaces the cities chosen by the user (is used when a Game is restored).
+     * @param choices   The new queue of pending cities.
+     */
+    void setChoices(Queue<City> choices) {
+        this.choices = choices;
+    }
+
+    /**
+     * A GUI Player waiting in a city without pending cities does nothing until the user clicks a city.
+     */
+    @Override
+    public int getIdleSteps() {
+        if(getPosition().hasArrived() && choices.isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        return super.getIdleSteps();
+    }
+    
+    @Override
+    public void decide(){
+        if(!choices.isEmpty()) {
+            travelTo(choices.remove());
         }
-        return false;
     }
 }
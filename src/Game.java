@@ -1,5 +1,12 @@
 import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList; 
@@ -8,10 +15,18 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
 /**
  * A Game object is an instance of NordicTraveller.
  * @author Nikolaj Ignatieff Schwartzbach.
@@ -22,14 +37,35 @@ public class Game {
     private List<Country> countries;       // List of all countries in the game
     private List<Player>  players;         // List of all players.
     private GUIPlayer guiPlayer;           // Reference to the GUI Player
-    private Random random;                 // Reference to random generator
+    private CopyableRandom random;         // Reference to random generator
     private boolean logging;               // Boolean telling whether the game is being logged
+    private ReplayLog log;                 // Log of the current game (or 'null' if it is not being logged)
+    private String logFile = "last.log";   // File the log is saved to when the game finishes (or 'null' to not save it)
     private int totalSteps = 600;           // Total number of steps
     private int stepsLeft = totalSteps;    // Steps left
     private int seed;                      // Seed of this Game instance (used for Random)
+    private int mapSeed;                   // Seed given by the Game command of the map (kept by MapImage)
     private Map<City, Point> guiPosition;  // Positions in the GUI for the various cities (in pixels)
+    private MapImage image;                // Image the map was built from, which has the other positions by id (or 'null')
     private Settings settings;             // Settings for this Game
     private boolean aborted=false;         // Boolean telling whethe this Game is forcefully aborted
+    private RoadGraph graph;               // Compiled network of all countries (or 'null' if it must be rebuilt)
+    private Map<String, Country> countryIndex; // Countries of this Game by name
+    private Map<String, City> cityIndex;   // Cities of all countries by name
+    private TimingWheel schedule;          // Next event of every active player (used by advance)
+    private Player[] order;                // Players in the order they move (indices of 'schedule')
+    private boolean[] active;              // Whether each player in 'order' is active
+    private int[] synced;                  // Step at whose start the position of each player in 'order' was last correct
+    private int[] values;                  // Values of the cities by id, if the map is shared (or 'null' if the cities hold the values)
+    private int[] versions;                // Versions of the values of the cities by id, if the map is shared (see getVersion)
+    private boolean valuesShared;          // Whether 'values' and 'versions' are shared with a fork or snapshot (and must be copied before they are changed)
+    private int[] sharedValues;            // Copy of the values held by the cities, which the forks and snapshots of this Game share (or 'null' until one is made, and after a City has changed)
+    private int[] sharedVersions;          // Versions of those values
+    private ExecutorService executor;      // Executor of the decisions of the players (or 'null' if they decide one by one)
+    private List<Player> pending;          // Players who decide at the end of the current step (when 'executor' is set)
+    private List<Game> snapshots;          // Values of the cities seen by each of the pending players
+    private String randomAlgorithm;        // Algorithm of the random streams of cities and players (or 'null' if all draws use 'random')
+    private RandomStreams streams;         // Random streams of the cities and players (or 'null')
 
     /**
      * Creates a new Game object with a random seed.
@@ -43,23 +79,138 @@ public class Game {
      * @param seed   The seed value to be used.
      */
     public Game(int seed) {
+        this(seed, loadSettings());
+    }
+
+    /**
+     * Creates a new Game object with a specified seed and Settings object.
+     * Does not touch 'settings.dat', which makes it safe to use from several threads at once.
+     * @param seed       The seed value to be used.
+     * @param settings   The Settings to be used by this Game.
+     */
+    public Game(int seed, Settings settings) {
         
         // Create random
         this.seed = seed;
-        random = new Random(seed);
+        mapSeed = seed;
+        random = new CopyableRandom(seed);
 
         // Create collections
         countries = new ArrayList<>();
         players   = new ArrayList<>();
         guiPosition = new HashMap<>();
+        countryIndex = new HashMap<>();
+        cityIndex = new HashMap<>();
+
+        this.settings = settings;
+    }
+
+    /**
+     * Creates a new Game object which plays on the map of another Game.
+     * The countries, cities, roads, RoadGraph and GUI positions are shared with that Game (and with any other Game
+     * created from it), while the values of the cities are kept in an int[] of this Game. So many games can be played
+     * at once (also on different threads) with a single copy of the map in memory.
+     * The map must not be changed after it has been shared, and this Game cannot change it.
+     * Players must be added (e.g. by addDefaultPlayers) and the Game must be reset before it is played.
+     * @param map        The Game whose map is shared.
+     * @param seed       The seed value to be used.
+     * @param settings   The Settings to be used by this Game.
+     */
+    public Game(Game map, int seed, Settings settings) {
+        this.seed = seed;
+        mapSeed = map.mapSeed;
+        random = new CopyableRandom(seed);
+        players = new ArrayList<>();
+        this.settings = settings;
+        totalSteps = map.totalSteps;
+        stepsLeft = totalSteps;
+
+        countries = map.countries;
+        countryIndex = map.countryIndex;
+        cityIndex = map.cityIndex;
+        guiPosition = map.guiPosition;
+        graph = map.prepareMap();
+        image = map.image;
+        values = new int[graph.getCityCount()];
+        versions = new int[values.length];
+        resetValues();
+    }
+
+    /**
+     * Creates a copy of a Game without players and without a Random (is used by fork and by the decisions made in parallel).
+     * The copy shares the map, Settings and number of steps left of the Game, and the values of the cities are shared
+     * until one of the games changes them (copy-on-write). If the cities of the Game hold its values, the copies share
+     * one copy of them, which is only made again when a City has changed (see valueChanged).
+     * The map of the Game must have been prepared (see prepareMap).
+     * @param game     The Game to copy.
+     */
+    private Game(Game game) {
+        seed = game.seed;
+        mapSeed = game.mapSeed;
+        settings = game.settings;
+        totalSteps = game.totalSteps;
+        stepsLeft = game.stepsLeft;
+        players = new ArrayList<>();
+        countries = game.countries;
+        countryIndex = game.countryIndex;
+        cityIndex = game.cityIndex;
+        guiPosition = game.guiPosition;
+        graph = game.graph;
+        image = game.image;
+        randomAlgorithm = game.randomAlgorithm;
+        streams = game.streams;
+        if(game.values == null) {
+            game.shareValues();
+            values = game.sharedValues;
+            versions = game.sharedVersions;
+        } else {
+            values = game.values;
+            versions = game.versions;
+            game.valuesShared = true;
+        }
+        valuesShared = true;
+    }
+
+    /**
+     * Forks this Game, i.e. creates a new Game in exactly the same state (values of the cities, players and Random),
+     * which can be played on (e.g. to look ahead) without changing this Game.
+     * The fork shares the map with this Game, and the values of the cities until either Game changes one of them,
+     * so forking only copies the players and the Random. The fork has no executor and is not logged.
+     * A Player may fork the Game while deciding (e.g. to search ahead), also while the Game is advanced.
+     * @return   The fork.
+     * @throws IllegalStateException   If this Game has random streams (which cannot be copied).
+     */
+    public Game fork() {
+        if(streams != null) {
+            throw new IllegalStateException("A Game with random streams cannot be forked");
+        }
+        prepareMap();
+        syncPositions();
+        Game fork = new Game(this);
+        fork.settings = new Settings(settings);
+        fork.random = random.copy();
+        fork.aborted = aborted;
+        for(Player p : players) {
+            Player copy = p.copy();
+            copy.setGame(fork);
+            fork.players.add(copy);
+            if(p == guiPlayer) {
+                fork.guiPlayer = (GUIPlayer) copy;
+            }
+        }
+        return fork;
+    }
 
-        // Try to load Settings from file, otherwise default to normal settings
+    /**
+     * Loads the Settings from 'settings.dat'.
+     * @return   The stored Settings (or the default Settings, if the file is missing or malformed).
+     */
+    public static Settings loadSettings() {
         try{
-            settings = new Settings(new String(Files.readAllBytes(Paths.get("settings.dat"))));
+            return new Settings(new String(Files.readAllBytes(Paths.get("settings.dat"))));
         } catch(IOException|SettingsException e) {
-            settings = new Settings();
+            return new Settings();
         }
-        
     }
 
     /**
@@ -73,7 +224,8 @@ public class Game {
      *  - Road: create a new road with length args[2] from a city with name ~ args[0] to a city with name ~args[1].
      * All cities must be created after the countries in which they are positioned.
      * Analogously roads must be created after the cities which they connect.
-     * Lines beginning with // are ignored. All tabs are replaced by spaces.
+     * Lines beginning with // are ignored. The arguments are separated by spaces and tabs.
+     * The file is streamed through a MapReader, so only a small buffer of it is in memory at a time.
      * Any exception thrown is printed to System.out.
      * 
      * @param path   Path of the file to load.
@@ -81,48 +233,148 @@ public class Game {
      * @throws       NumberFormatException   If the values of cities are not ints.
      */
     public static final Game fromFile(String path) {
-        Game game = null;
-        try {
-            String country = null;
-            for(String line : Files.readAllLines(Paths.get(path))) {
-                while(line.contains("  ") || line.contains("\t")) {
-                    line = line.replace("\t"," ").replace("  ", " ");
-                }
-                String[] args = line.split(" ");
-                if(args[0].startsWith("//") || args[0].trim().isEmpty()) {
-                    continue;
-                }
-                switch(args[0].toLowerCase()) {
-                    case "background": break;
-                    case "game": game = new Game(Integer.parseInt(args[1])); break;
-                    case "country": game.addCountry(new Country(args[1])); country = args[1]; break;
-                    case "city": game.addCity(args[1], Integer.parseInt(args[2]), country); break;
-                    case "road": game.addRoads(args[1], args[2], Integer.parseInt(args[3])); break;
-                    case "position": game.putPosition(game.getCity(args[1].trim()),
-                        new Point(Integer.parseInt(args[2]), Integer.parseInt(args[3]))); break;
-                    default: if(!args[0].contains("//")) System.out.println("unknown: "+args[0]); break;
+        try(MapReader reader = new MapReader(FileChannel.open(Paths.get(path)))) {
+            return fromReader(reader, loadSettings());
+        } catch(IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Constructs a new Game object from the lines of an already loaded map file (see fromFile for the format).
+     * Lets callers that build many games from the same map read the file only once.
+     * @param lines      Lines of the map file.
+     * @param settings   The Settings to be used by the Game.
+     * @return           Game object (or 'null' if the lines do not contain a Game command).
+     */
+    public static final Game fromLines(List<String> lines, Settings settings) {
+        byte[] bytes = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        try(MapReader reader = new MapReader(Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            return fromReader(reader, settings);
+        } catch(IOException e) {
+            //The bytes of Strings are valid UTF-8 and can always be read
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Constructs a new Game object from the commands of a map file (see fromFile for the format).
+     * The file is read in a single pass, and the numbers are parsed without creating Strings.
+     * The map is built in bulk by a MapBuilder.
+     * @param reader     Reader of the map file.
+     * @param settings   The Settings to be used by the Game.
+     * @return           Game object (or 'null' if the file does not contain a Game command).
+     * @throws IOException   If the file cannot be read or is not valid UTF-8.
+     */
+    public static final Game fromReader(MapReader reader, Settings settings) throws IOException {
+        MapBuilder map = null;
+        while(reader.next()) {
+            if(reader.is(0, "background")) {
+                continue;
+            } else if(reader.is(0, "game")) {
+                map = new MapBuilder(reader.number(1), settings);
+            } else if(reader.is(0, "country")) {
+                map.addCountry(reader.text(1), reader.size() > 2 && reader.is(2, "mafia"));
+            } else if(reader.is(0, "city")) {
+                int type = MapImage.CITY;
+                if(reader.size() > 3 && reader.is(3, "border")) {
+                    type = MapImage.BORDER;
+                } else if(reader.size() > 3 && reader.is(3, "capital")) {
+                    type = MapImage.CAPITAL;
                 }
+                map.addCity(reader.text(1), reader.number(2), type);
+            } else if(reader.is(0, "road")) {
+                map.addRoads(reader.text(1), reader.text(2), reader.number(3));
+            } else if(reader.is(0, "position")) {
+                map.putPosition(reader.text(1), reader.number(2), reader.number(3));
+            } else if(!reader.isComment(0)) {
+                System.out.println("unknown: "+reader.text(0));
             }
-            
-            if(game != null) {
-                game.getPlayers().add(new SmartPlayer(game.getRandomStartingPosition()));
-                game.getPlayers().add(new GreedyPlayer(game.getRandomStartingPosition()));
-                game.getPlayers().add(new RandomPlayer(game.getRandomStartingPosition()));
-                GUIPlayer p = new GUIPlayer(game.getRandomStartingPosition());
-                game.setGUIPlayer(p);
-                game.reset();
-            }
+        }
+        
+        if(map == null) {
+            return null;
+        }
+        Game game = map.build();
+        game.addDefaultPlayers();
+        game.reset();
+        return game;
+    }
+
+    /**
+     * Constructs a new Game object from a compiled map (see MapImage), which is memory-mapped instead of parsed.
+     * Any exception thrown is printed to System.out.
+     * @param path   Path of the image to load.
+     * @return       Game object (or 'null' if an error is detected).
+     */
+    public static final Game fromImage(String path) {
+        try {
+            return fromImage(MapImage.open(Paths.get(path)), loadSettings());
         } catch(IOException e) {
             e.printStackTrace();
-        } finally {
-            return game;
+            return null;
         }
     }
 
+    /**
+     * Constructs a new Game object from a compiled map.
+     * The countries, cities and roads are created in the order of the image, so no names are looked up, and the
+     * cities get the same ids as in the RoadGraph the image was compiled from. The GUI positions are not copied:
+     * getPosition reads them from the image when the GUI asks (headless games never do).
+     * @param image      The compiled map.
+     * @param settings   The Settings to be used by the Game.
+     * @return           Game object.
+     */
+    public static final Game fromImage(MapImage image, Settings settings) {
+        Game game = new Game(image.getSeed(), settings);
+        City[] cities = new City[image.getCityCount()];
+        List<Country> countries = new ArrayList<>();
+        for(int c = 0; c < image.getCountryCount(); c++) {
+            String name = image.getCountryName(c);
+            Country country = image.isMafia(c) ? new MafiaCountry(name) : new Country(name);
+            for(int id = image.getFirstCity(c); id < image.getFirstCity(c + 1); id++) {
+                String city = image.getCityName(id);
+                int value = image.getValue(id);
+                switch(image.getType(id)) {
+                    case MapImage.CAPITAL: cities[id] = new CapitalCity(city, value, country); break;
+                    case MapImage.BORDER: cities[id] = new BorderCity(city, value, country); break;
+                    default: cities[id] = new City(city, value, country); break;
+                }
+                country.addCity(cities[id]);
+            }
+            countries.add(country);
+        }
+        for(int id = 0; id < cities.length; id++) {
+            for(int e = image.getFirstRoad(id); e < image.getFirstRoad(id + 1); e++) {
+                cities[id].getCountry().addRoad(new Road(cities[id], cities[image.getTarget(e)], image.getLength(e)));
+            }
+        }
+        game.addCountries(countries);
+        game.getGraph();
+        game.image = image;
+        game.addDefaultPlayers();
+        game.reset();
+        return game;
+    }
+
+    /**
+     * Adds a SmartPlayer, a GreedyPlayer, a RandomPlayer and a GUIPlayer at random starting positions.
+     */
+    public void addDefaultPlayers() {
+        players.add(new SmartPlayer(getRandomStartingPosition()));
+        players.add(new GreedyPlayer(getRandomStartingPosition()));
+        players.add(new RandomPlayer(getRandomStartingPosition()));
+        setGUIPlayer(new GUIPlayer(getRandomStartingPosition()));
+    }
+
     /**
      * Aborts the current game.
      */
     public void abort() {
+        if(log != null && ongoing()) {
+            log.abort(totalSteps - stepsLeft);
+        }
         aborted = true;
     }
 
@@ -156,7 +408,52 @@ public class Game {
      * @return   An integer representing how many euroes the player lost.
      */
     public int getLoss() {
-        return settings.getMinRobbery() + random.nextInt(settings.getMaxRobbery() - settings.getMinRobbery() + 1);
+        return getLoss(random);
+    }
+
+    /**
+     * Gets the loss in a robbery, drawn from a given random generator.
+     * @param r   The random generator (e.g. the stream of the City where the robbery happens).
+     * @return    An integer in the interval [minRobbery, maxRobbery].
+     */
+    public int getLoss(RandomGenerator r) {
+        return settings.getMinRobbery() + r.nextInt(settings.getMaxRobbery() - settings.getMinRobbery() + 1);
+    }
+
+    /**
+     * Gets the random generator used for the events of a given City (bonus, robbery and expenses).
+     * @param c   The City.
+     * @return    The stream of the City, or the Random of this Game if there are no random streams.
+     */
+    public RandomGenerator getRandom(City c) {
+        if(streams == null) {
+            return random;
+        }
+        return streams.getCity(c.getId());
+    }
+
+    /**
+     * Gives every City and every Player its own random stream (derived from the seed of this Game),
+     * or lets everything use the single Random of this Game (the default).
+     * With separate streams, a draw for one City or Player does not change the draws of the others, so the players
+     * which draw random numbers can also decide in parallel. Takes effect when this Game is reset.
+     * @param algorithm   The name of a RandomGenerator algorithm (e.g. "L64X128MixRandom", "Xoroshiro128PlusPlus"
+     *                    or "SplittableRandom"), or 'null' to use the single Random.
+     * @throws IllegalArgumentException   If the algorithm does not exist.
+     */
+    public void setRandomAlgorithm(String algorithm) {
+        if(algorithm != null) {
+            RandomGeneratorFactory.of(algorithm);
+        }
+        randomAlgorithm = algorithm;
+    }
+
+    /**
+     * Gets the algorithm of the random streams of the cities and players.
+     * @return   The name of the algorithm (or 'null' if everything uses the single Random).
+     */
+    public String getRandomAlgorithm() {
+        return randomAlgorithm;
     }
 
     /**
@@ -165,6 +462,7 @@ public class Game {
      * @param p   Position (as a Point object).
      */
     public void putPosition(City c, Point p) {
+        checkMap();
         guiPosition.put(c, p);
     }
 
@@ -174,9 +472,30 @@ public class Game {
      * @return    Position of the speicifed city (as a Point object).
      */
     public Point getPosition(City c) {
+        if(!guiPosition.containsKey(c) && positionsFromImage()) {
+            return graph.contains(c) ? image.getPosition(c.getId()) : null;
+        }
+        //The positions of the image have been copied if the map has changed since it was built
         return guiPosition.get(c);
     }
 
+    /**
+     * Decides whether the GUI positions are read from the image the map was built from.
+     * The image is valid until the map changes: then its positions are copied (before the graph is rebuilt and the
+     * ids of the cities are assigned again, see copyPositions) and it is dropped.
+     * @return   Whether the cities still have the ids of the image (and the graph is built).
+     */
+    private boolean positionsFromImage() {
+        if(image == null) {
+            return false;
+        }
+        if(graph == null) {
+            copyPositions();
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Returns the position of a random City (by a choosing a random Country and then a random City within that Country).
      * @return   Position of a Random City.
@@ -193,33 +512,341 @@ public class Game {
      * @param contry  The name of the country.
      */    
     public void addCity(String name, int value, String country) {
+        checkMap();
+        Country c = countryIndex.get(country.trim());
+        if(c != null) {
+            c.addCity(new City(name, value, c));
+        }
+    }
+
+    /**
+     * Registers a City which has been added to a Country (is called by Country.addCity).
+     * Cities of countries which are not part of this Game are ignored.
+     * @param country   The Country to which the City has been added.
+     * @param c         The City which has been added.
+     */
+    void cityAdded(Country country, City c) {
+        graph = null;
+        if(isOwnCountry(country)) {
+            indexCity(country, c);
+        }
+    }
+
+    /**
+     * Adds a City to the index of cities by name, which finds the same City as a search through the countries in
+     * their sorted order (as getCity did before the index): a City replaces the indexed City of the same name if its
+     * Country comes first, or if it replaces that City in the same Country.
+     * @param country   The Country of the City (which must be one of the countries of this Game).
+     * @param c         The City.
+     */
+    private void indexCity(Country country, City c) {
+        City indexed = cityIndex.get(c.getName());
+        if(indexed == null || country.getCity(c.getName()) == c && (indexed.getCountry() == country
+                || comesBefore(country, indexed.getCountry()))) {
+            cityIndex.put(c.getName(), c);
+        }
+    }
+
+    /**
+     * Determines whether a Country comes before another Country in the sorted list of countries
+     * (countries with the same name are kept in the order they were added).
+     * @param a   The first Country.
+     * @param b   The second Country.
+     * @return    True if a comes before b.
+     */
+    private boolean comesBefore(Country a, Country b) {
+        int order = a.getName().compareTo(b.getName());
+        if(order != 0) {
+            return order < 0;
+        }
         for(Country c : countries) {
-            if(c.getName().equals(country.trim())) {
-                c.addCity(new City(name, value, c));
-                return;
+            if(c == a || c == b) {
+                return c == a;
             }
         }
+        return false;
     }
 
     /**
      * Resets this Game object (by resetting the log, Random object and all countries).
+     * Creates new random streams for the cities and players (if an algorithm is set by setRandomAlgorithm).
      * Assigns random positions to all players.
      */
     public void reset() {
-        seed = random.nextInt(Integer.MAX_VALUE);
-        random = new Random(seed);
+        reset(random.nextInt(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Resets this Game object with a given seed (see reset()).
+     * Starts a new ReplayLog if this Game is being logged.
+     * @param seed   The seed of the new Random.
+     */
+    public void reset(int seed) {
+        schedule = null;
+        order = null;
+        this.seed = seed;
+        random = new CopyableRandom(seed);
         stepsLeft = totalSteps;
         aborted = false;
+        streams = null;
+        if(randomAlgorithm != null) {
+            streams = new RandomStreams(randomAlgorithm, seed, getGraph().getCityCount(), players.size());
+        }
         
-        for(Country c : countries) {
-            c.reset();
+        if(values != null) {
+            resetValues();
+        } else {
+            for(Country c : countries) {
+                c.reset();
+            }
         }
         
         Collections.sort(players);
-        for(Player p : players) {
+        for(int i = 0; i < players.size(); i++) {
+            Player p = players.get(i);
+            p.setGame(this);
+            p.setRandom(streams == null ? null : streams.getPlayer(i));
             p.setMoney(0);
             p.setPosition(getRandomStartingPosition());
         }
+
+        log = null;
+        if(logging) {
+            if(streams != null) {
+                throw new IllegalStateException("A Game with random streams cannot be logged");
+            }
+            log = new ReplayLog(this, ReplayLog.INTERVAL);
+        }
+    }
+
+    /**
+     * Gets the seed of the Random of this Game (as of the last reset).
+     * @return   The seed.
+     */
+    public int getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the seed the Game was created with (the seed of the Game command of its map), which reset does not change.
+     * @return   The seed.
+     */
+    public int getMapSeed() {
+        return mapSeed;
+    }
+
+    /**
+     * Replaces the Settings of this Game.
+     * @param settings   The new Settings.
+     */
+    public void setSettings(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Determines whether the games played by this Game are logged.
+     * @param logging   true to log the games (from the next reset), false to stop logging.
+     */
+    public void setLogging(boolean logging) {
+        this.logging = logging;
+        if(!logging) {
+            log = null;
+        }
+    }
+
+    /**
+     * Gets whether the games played by this Game are logged.
+     * @return   true if and only if the games are logged.
+     */
+    public boolean isLogging() {
+        return logging;
+    }
+
+    /**
+     * Changes the file the log of a logged game is saved to when the game finishes.
+     * @param path   The path of the file (or 'null' to not save the log).
+     */
+    public void setLogFile(String path) {
+        logFile = path;
+    }
+
+    /**
+     * Gets the file the log of a logged game is saved to when the game finishes.
+     * @return   The path of the file (or 'null' if the log is not saved).
+     */
+    public String getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Gets the log of the current game.
+     * @return   The ReplayLog of the current game (or 'null' if it is not being logged).
+     */
+    public ReplayLog getLog() {
+        return log;
+    }
+
+    /**
+     * Records a keyframe in the log if the current step is a multiple of the keyframe interval.
+     */
+    private void keyframe() {
+        int now = totalSteps - stepsLeft;
+        if(log != null && now % log.getInterval() == 0) {
+            syncPositions();
+            log.keyframe(this, now);
+        }
+    }
+
+    /**
+     * Saves the log to the log file (by default 'last.log') when the game has finished.
+     */
+    private void saveLog() {
+        if(log == null || logFile == null || stepsLeft != 0) {
+            return;
+        }
+        try {
+            log.save(logFile);
+        } catch(IOException e) {
+            System.out.println("Unable to save log: "+e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the state of the current game (for a keyframe of a ReplayLog):
+     * the steps left, the state of the Random (as a long), the values of all cities, and the money and position of all players.
+     * @param out   The output.
+     */
+    void writeState(DataOutput out) throws IOException {
+        ReplayLog.writeVarint(out, stepsLeft);
+        out.writeLong(random.getState());
+        RoadGraph g = getGraph();
+        for(int id = 0; id < g.getCityCount(); id++) {
+            ReplayLog.writeSigned(out, getValue(g.getCity(id)));
+        }
+        for(Player p : players) {
+            Position pos = p.getPosition();
+            ReplayLog.writeSigned(out, p.getMoney());
+            ReplayLog.writeVarint(out, pos.getFrom().getId());
+            ReplayLog.writeVarint(out, pos.getTo().getId());
+            ReplayLog.writeVarint(out, pos.getDistance());
+            ReplayLog.writeVarint(out, pos.getTotal());
+            if(p instanceof GUIPlayer) {
+                Queue<City> choices = ((GUIPlayer) p).getChoices();
+                ReplayLog.writeVarint(out, choices.size());
+                for(City c : choices) {
+                    ReplayLog.writeVarint(out, c.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Restores a state written by writeState (the players must be the same and in the same order).
+     * @param in   The input.
+     */
+    void readState(DataInput in) throws IOException {
+        schedule = null;
+        order = null;
+        aborted = false;
+        stepsLeft = ReplayLog.readVarint(in);
+        random = CopyableRandom.fromState(in.readLong());
+        RoadGraph g = getGraph();
+        for(int id = 0; id < g.getCityCount(); id++) {
+            City c = g.getCity(id);
+            changeValue(c, ReplayLog.readSigned(in) - getValue(c));
+        }
+        for(Player p : players) {
+            p.setMoney(ReplayLog.readSigned(in));
+            City from = g.getCity(ReplayLog.readVarint(in));
+            City to = g.getCity(ReplayLog.readVarint(in));
+            int distance = ReplayLog.readVarint(in);
+            p.restorePosition(new Position(from, to, distance, ReplayLog.readVarint(in)));
+            if(p instanceof GUIPlayer) {
+                Queue<City> choices = new LinkedList<>();
+                for(int i = ReplayLog.readVarint(in); i > 0; i--) {
+                    choices.add(g.getCity(ReplayLog.readVarint(in)));
+                }
+                ((GUIPlayer) p).setChoices(choices);
+            }
+        }
+    }
+
+    /**
+     * Sets the values of the cities of a shared map to their initial values.
+     */
+    private void resetValues() {
+        if(valuesShared) {
+            values = new int[values.length];
+            versions = versions.clone();
+            valuesShared = false;
+        }
+        for(int id = 0; id < values.length; id++) {
+            values[id] = graph.getCity(id).getInitialValue();
+            versions[id]++;
+        }
+    }
+
+    /**
+     * Gets the value of a City in this Game.
+     * If the map is shared, the value is kept by this Game; otherwise it is the value held by the City.
+     * @param c   The City.
+     * @return    The current value of the City in this Game.
+     */
+    public int getValue(City c) {
+        if(values == null) {
+            return c.getValue();
+        }
+        return values[c.getId()];
+    }
+
+    /**
+     * Changes the value of a City in this Game by a given amount.
+     * @param c        The City.
+     * @param amount   The amount to change the value by.
+     */
+    public void changeValue(City c, int amount) {
+        if(values == null) {
+            c.changeValue(amount);
+        } else {
+            if(valuesShared) {
+                values = values.clone();
+                versions = versions.clone();
+                valuesShared = false;
+            }
+            values[c.getId()] += amount;
+            versions[c.getId()]++;
+        }
+    }
+
+    /**
+     * Gets the version of the value of a City in this Game, which is increased every time the value is changed
+     * (also by a bonus of 0) or reset. A player can compare versions to see whether the values it planned with
+     * have changed since. The versions of a fork start from those of the Game it was forked from.
+     * @param c   The City.
+     * @return    The version of the value of the City in this Game.
+     */
+    public int getVersion(City c) {
+        if(values == null) {
+            return c.getVersion();
+        }
+        return versions[c.getId()];
+    }
+
+    /**
+     * Determines whether this Game plays on the map of another Game.
+     * @return   true if and only if the map of this Game is shared.
+     */
+    public boolean isShared() {
+        return values != null;
+    }
+
+    /**
+     * Throws an exception if this Game plays on a shared map (which must not be changed).
+     */
+    private void checkMap() {
+        if(values != null) {
+            throw new IllegalStateException("The map of this Game is shared with other games");
+        }
     }
 
     /**
@@ -241,6 +868,7 @@ public class Game {
      */
     public void setGUIPlayer(GUIPlayer p) {
         this.guiPlayer = p;
+        p.setGame(this);
         players.add(p);
     }
 
@@ -257,9 +885,84 @@ public class Game {
      * @param c   Country to be added.
      */
     public void addCountry(Country c) {
-        countries.add(c);
-        c.setGame(this);
+        addCountries(List.of(c));
+    }
+
+    /**
+     * Adds several countries to this Game, and sorts the countries once.
+     * @param list   Countries to be added.
+     */
+    public void addCountries(List<Country> list) {
+        checkMap();
+        graph = null;
+        for(Country c : list) {
+            countries.add(c);
+            countryIndex.putIfAbsent(c.getName(), c);
+            c.setGame(this);
+        }
         Collections.sort(countries, Comparator.comparing(k -> k.getName()));
+        for(Country c : list) {
+            for(City city : c.getCities()) {
+                indexCity(c, city);
+            }
+        }
+    }
+
+    /**
+     * Gets the compiled network of all countries in this Game.
+     * The graph is built the first time it is needed after the network has changed.
+     * @return   The RoadGraph of this Game.
+     */
+    public RoadGraph getGraph() {
+        if(graph == null) {
+            copyPositions();
+            graph = new RoadGraph(countries);
+        }
+        return graph;
+    }
+
+    /**
+     * Copies the GUI positions of the image the map was built from, before the map has changed so much that the ids
+     * of the cities are assigned again (the cities still have the ids of the image until then).
+     */
+    private void copyPositions() {
+        if(image == null) {
+            return;
+        }
+        for(Country country : countries) {
+            for(City city : country.getCities()) {
+                int id = city.getId();
+                if(id >= 0 && id < image.getCityCount() && !guiPosition.containsKey(city)) {
+                    Point p = image.getPosition(id);
+                    if(p != null) {
+                        guiPosition.put(city, p);
+                    }
+                }
+            }
+        }
+        image = null;
+    }
+
+    /**
+     * Builds everything of the map which is otherwise built lazily (the RoadGraph and the road index of every Country),
+     * so games and players on other threads only read the map.
+     * @return   The RoadGraph of this Game.
+     */
+    private RoadGraph prepareMap() {
+        synchronized(this) {
+            RoadGraph g = getGraph();
+            for(Country c : countries) {
+                c.getRoadIndex(g);
+            }
+            return g;
+        }
+    }
+
+    /**
+     * Discards the compiled network (is called when a Country of this Game changes its network).
+     */
+    void networkChanged() {
+        graph = null;
     }
 
     /**
@@ -280,40 +983,286 @@ public class Game {
 
     /**
      * Finds a city with the specified name (in an arbitrary country).
+     * Uses an index of all cities, which is maintained by addCountry and Country.addCity.
      * @param name   Name of the city to search for (case sensitive).
      * @return       City object with the speicified named (or 'null').
      */
     public City getCity(String name) {
-        City city = null;
-        for(Country c : countries) {
-            city = c.getCity(name);
-            if(city != null) {
-                return city;
-            }
-        }
-        return null;
+        return cityIndex.get(name);
     }
 
     /**
      * Advances this Game one step.
      * A step consists of moving all players one step on the road they are currently travelling, as well as updating money.
-     * If the step finishes the game (getStepsLeft()==1), the Log of this Game is saved to 'last.log'.
+     * If the step finishes the game (getStepsLeft()==1) and the game is logged, the ReplayLog of this Game is saved to the log file (see setLogFile).
      */
     public void step() {
         if(stepsLeft == 0 || aborted) {
             return;
         }
+        if(schedule != null) {
+            clearSchedule();
+        }
+        if(executor != null) {
+            prepareMap();
+        }
+        keyframe();
         Collections.sort(players);
         for(Player p : players) {
-            if(p.getClass()==RandomPlayer.class && !settings.isActive(0)) { continue; }
-            if(p.getClass()==GreedyPlayer.class && !settings.isActive(1)) { continue; }
-            if(p.getClass()==SmartPlayer.class && !settings.isActive(2))  { continue; }
+            if(!isActive(p)) { continue; }
+            act(p);
+        }
+        decidePending();
+        stepsLeft--;
+        saveLog();
+    }
+
+    /**
+     * Lets a Player act in the current step, i.e. move, and decide where to go if it is in a city.
+     * If an executor is set, a Player which decides in parallel only moves here, and decides in decidePending()
+     * against a copy of the values of the cities at this point. Its decision is therefore the same as if it had
+     * decided right away, while the arrivals of all players are still applied one by one in the order of the players.
+     * @param p   The Player.
+     */
+    private void act(Player p) {
+        if(executor == null) {
             p.step();
-            if(p.getMoney() < 0) {
-                p.setMoney(0);
+        } else if(p.move()) {
+            if(p.decidesInParallel()) {
+                pending.add(p);
+                snapshots.add(new Game(this));
+            } else {
+                p.decide();
             }
         }
-        stepsLeft--;
+        if(p.getMoney() < 0) {
+            p.setMoney(0);
+        }
+    }
+
+    /**
+     * Lets the players who have been put aside by act() decide, using the executor.
+     */
+    private void decidePending() {
+        if(executor == null || pending.isEmpty()) {
+            return;
+        }
+        if(pending.size() == 1) {
+            decide(pending.get(0), snapshots.get(0));
+        } else {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for(int i = 0; i < pending.size(); i++) {
+                Player p = pending.get(i);
+                Game snapshot = snapshots.get(i);
+                tasks.add(() -> decide(p, snapshot));
+            }
+            try {
+                for(Future<Void> f : executor.invokeAll(tasks)) {
+                    f.get();
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch(ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        pending.clear();
+        snapshots.clear();
+    }
+
+    /**
+     * Lets a Player decide against a copy of this Game.
+     * @param p          The Player.
+     * @param snapshot   The copy of this Game seen by the Player.
+     * @return           null.
+     */
+    private Void decide(Player p, Game snapshot) {
+        p.setGame(snapshot);
+        try {
+            p.decide();
+        } finally {
+            p.setGame(this);
+        }
+        return null;
+    }
+
+    /**
+     * Makes a copy of the values held by the cities (and their versions) for the forks and snapshots of this Game,
+     * unless the copy is still up to date.
+     */
+    private void shareValues() {
+        if(sharedValues != null) {
+            return;
+        }
+        int[] copy = new int[graph.getCityCount()];
+        int[] copyVersions = new int[copy.length];
+        for(int id = 0; id < copy.length; id++) {
+            copy[id] = graph.getCity(id).getValue();
+            copyVersions[id] = graph.getCity(id).getVersion();
+        }
+        sharedVersions = copyVersions;
+        sharedValues = copy;
+    }
+
+    /**
+     * Registers that the value of a City held by the City has changed (is called by City.changeValue and City.reset).
+     * The copy of the values shared by the forks and snapshots is dropped (they keep it, and a new copy is made for
+     * the next fork or snapshot).
+     * @param c   The City.
+     */
+    void valueChanged(City c) {
+        sharedValues = null;
+        sharedVersions = null;
+    }
+
+    /**
+     * Determines whether this Game and another Game share the array of the values of the cities (copy-on-write).
+     * @param other   The other Game.
+     * @return        True if both games keep their values in the same array.
+     */
+    boolean sharesValues(Game other) {
+        return values != null && values == other.values;
+    }
+
+    /**
+     * Sets an executor which lets the players decide in parallel (or 'null' to let them decide one by one).
+     * Each step then has two phases: first all players move and the arrivals (bonus, toll, robbery and expenses)
+     * are applied one by one in the order of the players, and then the players who arrived decide at the same time.
+     * Players who use the Random of this Game (see Player.decidesInParallel) still decide in the first phase.
+     * The results are exactly the same as when the players decide one by one.
+     * @param executor   The executor (which is not shut down by this Game).
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        pending = new ArrayList<>();
+        snapshots = new ArrayList<>();
+    }
+
+    /**
+     * Gets the executor which lets the players decide in parallel.
+     * @return   The executor (or 'null' if the players decide one by one).
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Advances this Game to the next step in which a player arrives or chooses a road, and performs that step.
+     * The steps in between only move the players along their roads, so they are done at once.
+     * The players are kept in a TimingWheel by the step of their next event, so a step only touches the
+     * players who act in it. Travelling players are moved when they arrive, when the GUI Player is clicked,
+     * when the game ends, or by syncPositions(), so getDistance() of a travelling Player may lag behind until then.
+     * The state afterwards (including getStepsLeft()) is the same as after calling step() the same number of times.
+     * The active players are determined by the Settings when the first step is advanced.
+     * @return   The number of steps this Game advanced.
+     */
+    public int advance() {
+        if(stepsLeft == 0 || aborted) {
+            return 0;
+        }
+        if(schedule == null || order.length != players.size()) {
+            createSchedule();
+        }
+        if(executor != null) {
+            prepareMap();
+        }
+        int steps = 0;
+        int due;
+        do {
+            keyframe();
+            int now = schedule.getNow();
+            due = schedule.poll();
+            int[] items = schedule.getDue();
+            for(int i = 0; i < due; i++) {
+                int item = items[i];
+                Player p = order[item];
+                p.getPosition().move(now - synced[item]);
+                synced[item] = now;
+                act(p);
+            }
+            decidePending();
+            for(int i = 0; i < due; i++) {
+                synced[items[i]] = now + 1;
+                schedule(items[i], now + 1);
+            }
+            stepsLeft--;
+            steps++;
+        } while(due == 0 && stepsLeft > 0);
+        if(stepsLeft == 0) {
+            syncPositions();
+            saveLog();
+        }
+        return steps;
+    }
+
+    /**
+     * Moves all travelling players to their actual positions after advance() has skipped steps.
+     * Afterwards the game can be continued with step().
+     */
+    public void syncPositions() {
+        if(schedule == null) {
+            return;
+        }
+        int now = totalSteps - stepsLeft;
+        for(int i = 0; i < order.length; i++) {
+            if(active[i]) {
+                order[i].getPosition().move(now - synced[i]);
+                synced[i] = now;
+            }
+        }
+    }
+
+    /**
+     * Puts all active players in a new TimingWheel (in the same order as step() moves them).
+     */
+    private void createSchedule() {
+        Collections.sort(players);
+        order = players.toArray(new Player[0]);
+        active = new boolean[order.length];
+        synced = new int[order.length];
+        int now = totalSteps - stepsLeft;
+        schedule = new TimingWheel(order.length, now);
+        for(int i = 0; i < order.length; i++) {
+            active[i] = isActive(order[i]);
+            synced[i] = now;
+            schedule(i, now);
+        }
+    }
+
+    /**
+     * Schedules an active player at the step of its next event (if that is before the end of the game).
+     * @param item   Index of the player in 'order'.
+     * @param now    The first step in which the player can act.
+     */
+    private void schedule(int item, int now) {
+        int idle = order[item].getIdleSteps();
+        if(!active[item] || idle >= totalSteps - now) {
+            schedule.cancel(item);
+            return;
+        }
+        schedule.schedule(item, now + idle);
+    }
+
+    /**
+     * Stops using the TimingWheel (after moving all players to their actual positions).
+     */
+    private void clearSchedule() {
+        syncPositions();
+        schedule = null;
+        order = null;
+    }
+
+    /**
+     * Determines whether a Player takes part in the game (AI players can be disabled in the Settings).
+     * @param p   The Player.
+     * @return    true if and only if the Player is active.
+     */
+    private boolean isActive(Player p) {
+        if(p.getClass()==RandomPlayer.class && !settings.isActive(0)) { return false; }
+        if(p.getClass()==GreedyPlayer.class && !settings.isActive(1)) { return false; }
+        if(p.getClass()==SmartPlayer.class && !settings.isActive(2))  { return false; }
+        return true;
     }
 
     /**
@@ -331,6 +1280,24 @@ public class Game {
      * @param c The city to click.
      */
     public void clickCity(City c) {
+        if(log != null && ongoing()) {
+            log.click(totalSteps - stepsLeft, c);
+        }
+        if(schedule == null) {
+            guiPlayer.travelTo(c);
+            return;
+        }
+        // Bring the GUI Player up to date, and schedule its next event again
+        int now = schedule.getNow();
+        for(int i = 0; i < order.length; i++) {
+            if(order[i] == guiPlayer) {
+                guiPlayer.getPosition().move(now - synced[i]);
+                synced[i] = now;
+                guiPlayer.travelTo(c);
+                schedule(i, now);
+                return;
+            }
+        }
         guiPlayer.travelTo(c);
     }
 
@@ -348,12 +1315,45 @@ public class Game {
     /**
      * Adds roads between 'a' and 'b' (if they exist) with a given length.
      * Adds a road from a to b, as well as a road from b to a (it is a symmetrical operator).
+     * Every road is only added to the Country of the City it starts in.
      * @param a       First City object.
      * @param b       Second City object.
      * @param length  Length of the road to construct.
      */
     public void addRoads(City a, City b, int length) {
-        countries.stream().forEach(c -> c.addRoads(a,b,length));
+        checkMap();
+        graph = null;
+        if(a == null || b == null) {
+            return;
+        }
+        //Only the countries of the two cities own the roads
+        Country ca = a.getCountry();
+        Country cb = b.getCountry();
+        if(isOwnCountry(ca)) {
+            ca.addRoads(a, b, length);
+        }
+        if(cb != ca && isOwnCountry(cb)) {
+            cb.addRoads(a, b, length);
+        }
+    }
+
+    /**
+     * Determines whether a Country has been added to this Game.
+     * @param c   The Country.
+     * @return    True if the Country is one of the countries of this Game.
+     */
+    private boolean isOwnCountry(Country c) {
+        Country first = c == null ? null : countryIndex.get(c.getName());
+        if(first == null || first == c) {
+            return first != null;
+        }
+        //Only the first Country with a name is in the index
+        for(Country k : countries) {
+            if(k == c) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -0,0 +1,279 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests games which share the map of another game, and players who decide in parallel
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class GameTest {
+    private Game map;
+
+    @BeforeEach
+    public void setUp() {
+        map = Game.fromFile("network.dat");
+    }
+
+    /**
+     * Plays a game with the default players to the end
+     */
+    private Game play(Game game, int seed) {
+        game.getRandom().setSeed(seed);
+        game.reset();
+        while (game.ongoing()) {
+            game.advance();
+        }
+        return game;
+    }
+
+    @Test
+    public void sharedMap() {
+        Game game = new Game(map, 0, new Settings());
+        assertTrue(game.isShared());
+        assertFalse(map.isShared());
+        assertSame(map.getGraph(), game.getGraph());
+        assertSame(map.getCity("København"), game.getCity("København"));
+        //Changing the map of a shared game is not allowed
+        assertThrows(IllegalStateException.class, () -> game.addRoads("København", "Malmö", 10));
+    }
+
+    @Test
+    public void sharedValues() {
+        City city = map.getCity("København");
+        Game game = new Game(map, 0, new Settings());
+        Game other = new Game(map, 0, new Settings());
+        assertEquals(city.getInitialValue(), game.getValue(city));
+        game.changeValue(city, 10);
+        //Only the value of the game itself is changed
+        assertEquals(city.getInitialValue() + 10, game.getValue(city));
+        assertEquals(city.getInitialValue(), other.getValue(city));
+        assertEquals(city.getInitialValue(), map.getValue(city));
+        game.reset();
+        assertEquals(city.getInitialValue(), game.getValue(city));
+    }
+
+    @Test
+    public void sameResult() {
+        for (int seed = 0; seed < 5; seed++) {
+            //A game on its own map and a game on a shared map have the same result
+            Game own = play(Game.fromFile("network.dat"), seed);
+            Game shared = new Game(map, seed, map.getSettings());
+            shared.addDefaultPlayers();
+            play(shared, seed);
+            for (int i = 0; i < own.getPlayers().size(); i++) {
+                assertEquals(own.getPlayers().get(i).getMoney(), shared.getPlayers().get(i).getMoney());
+            }
+            //The cities of the shared map are not changed by the shared game
+            for (Country country : map.getCountries()) {
+                for (City city : country.getCities()) {
+                    assertEquals(city.getInitialValue(), city.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a game on the shared map with many players who arrive in the same steps
+     */
+    private Game crowdedGame(int seed) {
+        Game game = new Game(map, seed, map.getSettings());
+        for (int i = 0; i < 8; i++) {
+            game.getPlayers().add(new SmartPlayer(game.getRandomStartingPosition(), new BacktrackingPlanner(60)));
+            game.getPlayers().add(new GreedyPlayer(game.getRandomStartingPosition()));
+            game.getPlayers().add(new RandomPlayer(game.getRandomStartingPosition()));
+        }
+        game.getRandom().setSeed(seed);
+        game.reset();
+        return game;
+    }
+
+    @Test
+    public void parallelDecisions() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int seed = 0; seed < 4; seed++) {
+                Game sequential = crowdedGame(seed);
+                Game parallel = crowdedGame(seed);
+                parallel.setExecutor(executor);
+                while (sequential.ongoing()) {
+                    //Compare both step() and advance()
+                    if (seed % 2 == 0) {
+                        sequential.step();
+                        parallel.step();
+                    } else {
+                        sequential.advance();
+                        parallel.advance();
+                    }
+                    for (int i = 0; i < sequential.getPlayers().size(); i++) {
+                        Player expected = sequential.getPlayers().get(i);
+                        Player actual = parallel.getPlayers().get(i);
+                        assertEquals(expected.getMoney(), actual.getMoney());
+                        assertEquals(expected.getPosition().getTo(), actual.getPosition().getTo());
+                        assertSame(parallel, actual.getGame());
+                    }
+                }
+                assertFalse(parallel.ongoing());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void randomStreams() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int seed = 0; seed < 2; seed++) {
+                //Also the RandomPlayers decide in parallel when they have their own streams
+                Game sequential = crowdedGame(seed);
+                sequential.setRandomAlgorithm("L64X128MixRandom");
+                sequential.getRandom().setSeed(seed);
+                sequential.reset();
+                Game parallel = crowdedGame(seed);
+                parallel.setRandomAlgorithm("L64X128MixRandom");
+                parallel.getRandom().setSeed(seed);
+                parallel.reset();
+                parallel.setExecutor(executor);
+                assertTrue(parallel.getPlayers().get(0).getRandom() != parallel.getRandom());
+                while (sequential.ongoing()) {
+                    sequential.advance();
+                    parallel.advance();
+                }
+                for (int i = 0; i < sequential.getPlayers().size(); i++) {
+                    assertEquals(sequential.getPlayers().get(i).getMoney(), parallel.getPlayers().get(i).getMoney());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void fork() {
+        Game game = Game.fromFile("network.dat");
+        Game reference = Game.fromFile("network.dat");
+        game.getRandom().setSeed(3);
+        game.reset();
+        reference.getRandom().setSeed(3);
+        reference.reset();
+        for (int i = 0; i < 100; i++) {
+            game.advance();
+            reference.advance();
+        }
+        //Play the fork to the end, and then the game itself
+        Game fork = game.fork();
+        assertNotSame(game.getPlayers().get(0), fork.getPlayers().get(0));
+        assertNotSame(game.getPlayers().get(0).getPosition(), fork.getPlayers().get(0).getPosition());
+        assertSame(fork, fork.getPlayers().get(0).getGame());
+        assertEquals(game.getStepsLeft(), fork.getStepsLeft());
+        while (fork.ongoing()) {
+            fork.advance();
+        }
+        while (reference.ongoing()) {
+            game.advance();
+            reference.advance();
+        }
+        //The game is not changed by its fork, and the fork played the same game
+        for (int i = 0; i < game.getPlayers().size(); i++) {
+            assertEquals(reference.getPlayers().get(i).getMoney(), game.getPlayers().get(i).getMoney());
+            assertEquals(reference.getPlayers().get(i).getMoney(), fork.getPlayers().get(i).getMoney());
+        }
+    }
+
+    @Test
+    public void copyOnWrite() {
+        City city = map.getCity("København");
+        Game game = new Game(map, 0, new Settings());
+        game.addDefaultPlayers();
+        game.reset();
+        game.changeValue(city, 5);
+        Game fork = game.fork();
+        Game forkOfFork = fork.fork();
+        fork.changeValue(city, 10);
+        game.changeValue(city, 20);
+        assertEquals(city.getInitialValue() + 15, fork.getValue(city));
+        assertEquals(city.getInitialValue() + 25, game.getValue(city));
+        assertEquals(city.getInitialValue() + 5, forkOfFork.getValue(city));
+        //A fork of a game with its own map does not change the cities
+        Game own = map.fork();
+        own.changeValue(city, 1);
+        assertEquals(city.getInitialValue(), city.getValue());
+        assertEquals(city.getInitialValue() + 1, own.getValue(city));
+    }
+
+    @Test
+    public void versions() {
+        City city = map.getCity("København");
+        Game game = new Game(map, 0, new Settings());
+        int version = game.getVersion(city);
+        game.changeValue(city, 0);
+        assertEquals(version + 1, game.getVersion(city));
+        assertEquals(city.getVersion(), map.getVersion(city));
+        //A fork starts with the versions of the game, and then counts its own changes
+        Game fork = game.fork();
+        fork.changeValue(city, -1);
+        assertEquals(version + 2, fork.getVersion(city));
+        assertEquals(version + 1, game.getVersion(city));
+        game.reset();
+        assertNotEquals(version + 1, game.getVersion(city));
+    }
+
+    @Test
+    public void cityNames() {
+        //A name is found in the first country in sorted order, as by a search through the countries
+        Game game = new Game(0, new Settings());
+        Country b = new Country("B");
+        b.addCity(new City("Same", 10, b));
+        game.addCountry(b);
+        Country a = new Country("A");
+        game.addCountry(a);
+        game.addCity("Same", 20, "A");
+        assertSame(a, game.getCity("Same").getCountry());
+        //Cities added after addCountry are found, also in a later country with the same name
+        Country b2 = new Country("B");
+        game.addCountry(b2);
+        b2.addCity(new City("Only", 30, b2));
+        b.addCity(new City("Later", 40, b));
+        b2.addCity(new City("Later", 50, b2));
+        assertSame(b2, game.getCity("Only").getCountry());
+        assertEquals(40, game.getCity("Later").getValue());
+        //A city replaced in its own country replaces it in the index
+        a.addCity(new City("Same", 60, a));
+        assertEquals(60, game.getCity("Same").getValue());
+        //Cities of countries which are not part of the game are not found
+        Country other = new Country("C");
+        other.setGame(game);
+        other.addCity(new City("Elsewhere", 70, other));
+        assertNull(game.getCity("Elsewhere"));
+    }
+
+    @Test
+    public void forkOwnMap() {
+        //The forks of a game whose cities hold the values share one copy of them until one of them writes
+        map.addDefaultPlayers();
+        map.reset();
+        City city = map.getCity("København");
+        Game first = map.fork();
+        Game second = map.fork();
+        assertTrue(first.sharesValues(second));
+        first.changeValue(city, 3);
+        assertFalse(first.sharesValues(second));
+        assertEquals(city.getValue() + 3, first.getValue(city));
+        assertEquals(city.getValue(), second.getValue(city));
+        //A change of the game itself is seen by its next fork, but not by the earlier ones
+        Game third = map.fork();
+        assertTrue(second.sharesValues(third));
+        map.changeValue(city, 5);
+        Game fourth = map.fork();
+        assertFalse(third.sharesValues(fourth));
+        assertEquals(city.getValue(), fourth.getValue(city));
+        assertEquals(city.getValue() - 5, third.getValue(city));
+        assertEquals(map.getVersion(city), fourth.getVersion(city));
+    }
+}
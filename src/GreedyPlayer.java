@@ -1,5 +1,4 @@
 import java.awt.Color;
-import java.util.*;
 
 /**
  * Models a player which greedily chooses the next city to travel to (looking only one city ahead).
@@ -17,24 +16,28 @@ public class GreedyPlayer extends Player {
     }
 
     @Override
-    public boolean step() {
-        if(super.step()) {
-            City city = getPosition().getTo();
-            List<Road> roads = new ArrayList<>(getCountry().getRoads(city));
-            double best = 0;
-            City bestCity = null;
-            for(Road road : roads) {
-                double value = road.getTo().getValue() / (double) road.getLength();
-                if(value > best) {
-                    bestCity = road.getTo();
-                    best = value;
-                }
+    public void decide() {
+        City city = getPosition().getTo();
+        Game game = getGame();
+        RoadGraph graph = game.getGraph();
+        int id = city.getId();
+        double best = 0;
+        City bestCity = null;
+        for(int e = graph.getFirstRoad(id); e < graph.getFirstRoad(id + 1); e++) {
+            City to = graph.getCity(graph.getTarget(e));
+            double value = game.getValue(to) / (double) graph.getLength(e);
+            if(value > best) {
+                bestCity = to;
+                best = value;
             }
-            if(bestCity != null)
-                setPosition(getCountry().readyToTravel(city, bestCity));
-            return true;
         }
-        return false;
+        if(bestCity != null)
+            setPosition(getCountry().readyToTravel(city, bestCity));
+    }
+
+    @Override
+    public boolean decidesInParallel() {
+        return true;
     }
 
     @Override
@@ -0,0 +1,162 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Measures how the load time of Game.fromLines grows with the size of the map.
+ * The maps are synthetic: every country has a chain of cities with a few extra roads,
+ * neighbouring countries are connected by a border road, and every city has a GUI position.
+ * If loading is linear, the time per 1000 cities stays roughly constant, and so does the time of a map with the same
+ * number of cities in more countries.
+ * Then a map of a given size in MB is written to a temporary file, and its lines are tokenized by a MapReader
+ * (without building a game), which shows the throughput and the bytes allocated per line of the streaming loader.
+ * Run it with a small heap (e.g. -Xmx256m, which the games of the first part need) to see that the file does not
+ * have to fit in memory.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class LoaderBenchmark {
+    private static final int COUNTRIES = 10;
+
+    /**
+     * Runs the benchmark.
+     * @param args [number of cities of the largest map] [MB of the tokenized file]
+     */
+    public static void main(String[] args) throws IOException {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Settings settings = new Settings();
+
+        //Warm up the JIT compiler
+        Game.fromLines(syntheticMap(COUNTRIES, largest / 8, 0), settings);
+
+        System.out.println("cities\tlines\tms\tms/1000 cities");
+        for (int cities = largest / 8; cities <= largest; cities *= 2) {
+            List<String> map = syntheticMap(COUNTRIES, cities, 0);
+            long start = System.nanoTime();
+            Game.fromLines(map, settings);
+            double ms = (System.nanoTime() - start) / 1e6;
+            System.out.println(cities + "\t" + map.size() + "\t" + String.format("%.1f", ms)
+                    + "\t" + String.format("%.3f", ms * 1000 / cities));
+        }
+
+        //The number of countries should not matter either
+        System.out.println();
+        System.out.println("countries\tms (" + largest / 4 + " cities)");
+        for (int countries = 10; countries <= 10000; countries *= 10) {
+            List<String> map = syntheticMap(countries, largest / 4, 0);
+            long start = System.nanoTime();
+            Game.fromLines(map, settings);
+            System.out.println(countries + "\t\t" + String.format("%.1f", (System.nanoTime() - start) / 1e6));
+        }
+
+        //About 24 bytes per line, and 3.2 lines per city
+        int cities = (int) Math.min(Integer.MAX_VALUE / 4, megabytes * (1L << 20) / 77);
+        Path file = Files.createTempFile("map", ".dat");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                syntheticMap(COUNTRIES * 100, cities, 0, line -> {
+                    try {
+                        out.write(line);
+                        out.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            tokenize(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Reads every command of a file with a MapReader, and prints the throughput and allocations.
+     * @param file the map file
+     */
+    private static void tokenize(Path file) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long sum = 0;
+        long lines;
+        try (MapReader reader = new MapReader(FileChannel.open(file))) {
+            while (reader.next()) {
+                //Parse the numbers like the loader does, but create no Strings
+                if (reader.is(0, "city")) {
+                    sum += reader.number(2);
+                } else if (reader.is(0, "road")) {
+                    sum += reader.number(3);
+                } else if (reader.is(0, "position")) {
+                    sum += reader.number(2) + reader.number(3);
+                }
+            }
+            lines = reader.getLines();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double megabytes = Files.size(file) / (double) (1 << 20);
+        System.out.println();
+        System.out.println("MB\tlines\tMB/s\tbytes allocated/line\tmax heap MB");
+        System.out.println(String.format("%.0f", megabytes) + "\t" + lines + "\t"
+                + String.format("%.0f", megabytes / seconds) + "\t"
+                + String.format("%.2f", (threads.getThreadAllocatedBytes(thread) - allocated) / (double) lines) + "\t\t\t"
+                + Runtime.getRuntime().maxMemory() / (1 << 20) + " (checksum " + sum + ")");
+    }
+
+    /**
+     * Generates a map in the format of 'network.dat'.
+     * @param countries the number of countries
+     * @param cities the total number of cities
+     * @param seed the seed of the random lengths, values and extra roads
+     * @return the lines of the map
+     */
+    public static List<String> syntheticMap(int countries, int cities, long seed) {
+        List<String> lines = new ArrayList<>();
+        syntheticMap(countries, cities, seed, lines::add);
+        return lines;
+    }
+
+    /**
+     * Generates a map in the format of 'network.dat' line by line (so it does not have to fit in memory).
+     * @param countries the number of countries
+     * @param cities the total number of cities
+     * @param seed the seed of the random lengths, values and extra roads
+     * @param lines receives the lines of the map
+     */
+    public static void syntheticMap(int countries, int cities, long seed, Consumer<String> lines) {
+        Random random = new Random(seed);
+        lines.accept("// Synthetic map with " + countries + " countries and " + cities + " cities");
+        lines.accept("Game\t\t0");
+        int perCountry = Math.max(1, cities / countries);
+        for (int c = 0; c < countries; c++) {
+            lines.accept("Country\t\tCountry" + c + (c % 3 == 2 ? "\tmafia" : ""));
+            int first = c * perCountry;
+            for (int i = first; i < first + perCountry; i++) {
+                String type = i == first ? "\tcapital" : (i == first + 1 ? "\tborder" : "");
+                lines.accept("City\t\tC" + i + "\t" + (50 + random.nextInt(200)) + type);
+            }
+            for (int i = first + 1; i < first + perCountry; i++) {
+                lines.accept("Road\t\tC" + (i - 1) + "\tC" + i + "\t" + (10 + random.nextInt(60)));
+                if (i % 4 == 0) {
+                    int other = first + random.nextInt(perCountry);
+                    lines.accept("Road\t\tC" + i + "\tC" + other + "\t" + (10 + random.nextInt(60)));
+                }
+            }
+            if (c > 0 && perCountry > 1) {
+                lines.accept("Road\t\tC" + (first - perCountry + 1) + "\tC" + (first + 1) + "\t" + (20 + random.nextInt(50)));
+            }
+        }
+        for (int i = 0; i < countries * perCountry; i++) {
+            lines.accept("Position\tC" + i + "\t" + random.nextInt(1000) + "\t" + random.nextInt(1000));
+        }
+    }
+}
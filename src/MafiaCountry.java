@@ -1,3 +1,5 @@
+import java.util.random.RandomGenerator;
+
 public class MafiaCountry extends Country{
 
     /**
@@ -12,16 +14,18 @@ public class MafiaCountry extends Country{
     /**
      * Calculates a bonus value based on if you get robbed or not based on the risk percentage which in that case gives a negative bonus instead
      * else gives a positive bonus based on a given value
+     * @param game the game whose settings are used
+     * @param random the random generator to draw from
      * @param value the maximum value of the bonus
      * @return a random bonus value between 0 and the given value or a negative value if you get robbed which is based on the risk percentage
      */
-    public int bonus(int value){
+    public int bonus(Game game, RandomGenerator random, int value){
         //Checks if a random value from [0,100] is less than the risk value [0,100] meaning that it goes into the if-statement equivalent to the getRisk() pct
-        if (getGame().getRandom().nextInt(100 + 1) <= getGame().getSettings().getRisk()){
+        if (random.nextInt(100 + 1) <= game.getSettings().getRisk()){
             //returns the positive loss as a negative number
-            return -getGame().getLoss();
+            return -game.getLoss(random);
         }else{
-            return super.bonus(value);
+            return super.bonus(game, random, value);
         }
     }
 }
@@ -0,0 +1,157 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the map of a new Game in bulk (is used by the loaders, see Game.fromFile).
+ * The countries and cities are created with the classes given by the map (MafiaCountry, BorderCity and CapitalCity),
+ * and nothing is registered in the Game until build is called: then the countries are added and sorted once, and
+ * every road is added to the network of the country of the city it starts in, so no Country is asked about roads it
+ * does not own. The roads of different countries can be added on several threads (see build(ExecutorService)).
+ * The time to build a map is linear in its number of lines (apart from the sorting of the names of the countries
+ * and cities, which the maps of the countries keep).
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class MapBuilder {
+    private final Game game;
+    private final List<Country> countries = new ArrayList<>();
+    private final Map<String, Country> countryIndex = new HashMap<>();
+    private final Map<String, City> cities = new HashMap<>();
+    private final Map<City, Point> positions = new HashMap<>();
+    private final Map<Country, List<Road>> roads = new HashMap<>(); // Roads by the country they start in
+    private Country country;    // Country of the cities being added (or null before the first country)
+
+    /**
+     * Creates a builder of the map of a new Game.
+     * @param seed the seed of the Game
+     * @param settings the Settings to be used by the Game
+     */
+    public MapBuilder(int seed, Settings settings) {
+        game = new Game(seed, settings);
+    }
+
+    /**
+     * Adds a country, which gets the cities added until the next country.
+     * If a country with the same name has been added, the cities are added to that country instead (like
+     * Game.addCity, which finds the country by name).
+     * @param name the name of the country
+     * @param mafia whether the country is a MafiaCountry
+     */
+    public void addCountry(String name, boolean mafia) {
+        Country c = mafia ? new MafiaCountry(name) : new Country(name);
+        countries.add(c);
+        countryIndex.putIfAbsent(name, c);
+        country = countryIndex.get(name);
+    }
+
+    /**
+     * Adds a city to the last added country (cities before the first country, and cities with the name of a city
+     * of the same country, are ignored).
+     * @param name the name of the city
+     * @param value the initial value of the city
+     * @param type the type of the city (MapImage.CITY, MapImage.BORDER or MapImage.CAPITAL)
+     */
+    public void addCity(String name, int value, int type) {
+        if (country == null || country.getCity(name) != null) {
+            return;
+        }
+        City city;
+        switch (type) {
+            case MapImage.CAPITAL: city = new CapitalCity(name, value, country); break;
+            case MapImage.BORDER: city = new BorderCity(name, value, country); break;
+            default: city = new City(name, value, country); break;
+        }
+        country.addCity(city);
+        //A name is resolved to the city of the first country in sorted order (as by Game.getCity)
+        City indexed = cities.get(name);
+        if (indexed == null || country.getName().compareTo(indexed.getCountry().getName()) < 0) {
+            cities.put(name, city);
+        }
+    }
+
+    /**
+     * Adds roads in both directions between two cities (if they exist and are different, and the length is positive).
+     * The cities are looked up now, and every direction is added to the network of the country of the city it starts
+     * in when the map is built.
+     * @param a the name of the first city
+     * @param b the name of the second city
+     * @param length the length of the roads
+     */
+    public void addRoads(String a, String b, int length) {
+        City from = cities.get(a);
+        City to = cities.get(b);
+        if (from == null || to == null || from.equals(to) || length <= 0) {
+            return;
+        }
+        roads.computeIfAbsent(from.getCountry(), k -> new ArrayList<>()).add(new Road(from, to, length));
+        roads.computeIfAbsent(to.getCountry(), k -> new ArrayList<>()).add(new Road(to, from, length));
+    }
+
+    /**
+     * Sets the GUI position of a city (if it exists).
+     * @param name the name of the city
+     * @param x the x coordinate in pixels
+     * @param y the y coordinate in pixels
+     */
+    public void putPosition(String name, int x, int y) {
+        City city = cities.get(name);
+        if (city != null) {
+            positions.put(city, new Point(x, y));
+        }
+    }
+
+    /**
+     * Adds the map to the Game. The Game has no players and has not been reset.
+     * @return the Game
+     */
+    public Game build() {
+        return build(null);
+    }
+
+    /**
+     * Adds the map to the Game, and adds the roads of the countries on the threads of an executor (the networks of
+     * the countries are sorted sets, so the result does not depend on the order in which the roads are added).
+     * @param executor the executor (or null to add the roads on this thread)
+     * @return the Game, which has no players and has not been reset
+     */
+    public Game build(ExecutorService executor) {
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (List<Road> list : roads.values()) {
+            Runnable task = () -> {
+                for (Road road : list) {
+                    road.getFrom().getCountry().addRoad(road);
+                }
+            };
+            if (executor == null) {
+                task.run();
+            } else {
+                tasks.add(Executors.callable(task));
+            }
+        }
+        if (executor != null) {
+            try {
+                for (Future<Object> f : executor.invokeAll(tasks)) {
+                    f.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        roads.clear();
+        game.addCountries(countries);
+        positions.forEach(game::putPosition);
+        game.getGraph();
+        return game;
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the bulk construction of maps by the loader
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class MapBuilderTest {
+
+    @Test
+    public void types() {
+        //The mafia, border and capital flags of 'network.dat' create the subclasses
+        Game game = Game.fromFile("network.dat");
+        for (Country country : game.getCountries()) {
+            assertEquals(country.getName().equals("Sweden"), country instanceof MafiaCountry);
+        }
+        assertInstanceOf(CapitalCity.class, game.getCity("Stockholm"));
+        assertInstanceOf(CapitalCity.class, game.getCity("København"));
+        assertInstanceOf(BorderCity.class, game.getCity("Luleå"));
+        assertEquals(BorderCity.class, game.getCity("Narvik").getClass());
+        assertEquals(City.class, game.getCity("Turku").getClass());
+    }
+
+    @Test
+    public void build() {
+        MapBuilder map = new MapBuilder(7, new Settings());
+        map.addCity("Nowhere", 10, MapImage.CITY);
+        map.addCountry("B", true);
+        map.addCity("b1", 10, MapImage.CAPITAL);
+        map.addCity("b1", 99, MapImage.CITY);
+        map.addCountry("A", false);
+        map.addCity("a1", 20, MapImage.BORDER);
+        map.addCity("a2", 30, MapImage.CITY);
+        map.addRoads("a1", "b1", 5);
+        map.addRoads("a1", "a2", 3);
+        map.addRoads("a1", "a1", 3);
+        map.addRoads("a2", "Nowhere", 3);
+        map.addRoads("a2", "b1", 0);
+        map.putPosition("a2", 1, 2);
+        //A name of two countries is resolved to the city of the first country in sorted order
+        map.addCity("b1", 40, MapImage.CITY);
+        map.addRoads("a2", "b1", 7);
+        Game game = map.build();
+
+        //The countries are sorted, and later cities with the same name are ignored
+        List<Country> countries = game.getCountries();
+        assertEquals("A", countries.get(0).getName());
+        assertEquals("B", countries.get(1).getName());
+        assertInstanceOf(MafiaCountry.class, countries.get(1));
+        assertNull(game.getCity("Nowhere"));
+        assertInstanceOf(CapitalCity.class, countries.get(1).getCity("b1"));
+        assertEquals(10, countries.get(1).getCity("b1").getValue());
+
+        //Every road is in the network of the country it starts in
+        City a1 = game.getCity("a1");
+        City b1 = countries.get(1).getCity("b1");
+        assertEquals(2, countries.get(0).getRoads(a1).size());
+        assertEquals(1, countries.get(1).getRoads(b1).size());
+        assertEquals(5, countries.get(1).getRoad(b1, a1).getLength());
+        assertEquals(40, game.getCity("b1").getValue());
+        assertEquals(7, countries.get(0).getRoad(game.getCity("a2"), game.getCity("b1")).getLength());
+        assertEquals(2, countries.get(0).getRoads(game.getCity("a2")).size());
+        assertEquals(6, game.getGraph().getRoadCount());
+        assertEquals(new Point(1, 2), game.getPosition(game.getCity("a2")));
+        assertEquals(7, game.getMapSeed());
+    }
+}
@@ -0,0 +1,331 @@
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A compiled map: a binary image of the countries, cities, roads and GUI positions of a Game, which is memory-mapped
+ * instead of parsed. Game.fromImage builds a Game from it without parsing text or looking up names, and tools which
+ * only need the graph can read the names, values and roads straight from the image without creating any objects.
+ *
+ * The image is a sequence of big-endian ints (after the string bytes, which are padded to a multiple of 4):
+ *  - header: MAGIC, VERSION, seed, countries, cities, roads, strings, bytes of the strings
+ *  - string table: the offset of every string and the end of the last one, then the UTF-8 bytes of the strings
+ *    (the names of the countries, then the names of the cities)
+ *  - countries: flags (MAFIA) and the id of the first city of every country (the cities of a country are
+ *    numbered consecutively, in the order of the RoadGraph)
+ *  - cities: value and type (CITY, BORDER or CAPITAL) of every city
+ *  - roads: the offsets, targets and lengths of the RoadGraph (compressed sparse rows)
+ *  - positions: x and y of every city (NO_POSITION if the city has no GUI position)
+ * An image can be compiled from a text map with 'java MapImage network.dat network.map'.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class MapImage {
+    /** First int of an image ("NTMI"). */
+    public static final int MAGIC = 0x4E544D49;
+    /** Version of the format, which is increased when the format changes. */
+    public static final int VERSION = 1;
+    /** Flag of a MafiaCountry. */
+    public static final int MAFIA = 1;
+    /** Types of cities. */
+    public static final int CITY = 0, BORDER = 1, CAPITAL = 2;
+    /** Coordinate of a city without a GUI position. */
+    public static final int NO_POSITION = Integer.MIN_VALUE;
+
+    private static final int HEADER = 8 * 4;
+
+    private final ByteBuffer image;     // The mapped file
+    private final int seed;
+    private final int countries;
+    private final int cities;
+    private final int roads;
+    private final int strings;          // Offset of the string table
+    private final int bytes;            // Offset of the bytes of the strings
+    private final int countryRecords;   // Offset of the records of the countries
+    private final int cityRecords;      // Offset of the records of the cities
+    private final int offsets;          // Offset of the first roads of the cities
+    private final int targets;          // Offset of the targets of the roads
+    private final int lengths;          // Offset of the lengths of the roads
+    private final int positions;        // Offset of the positions of the cities
+
+    /**
+     * Reads the header of an image.
+     * @param image the bytes of the image
+     * @throws IOException if the bytes are not an image of this version
+     */
+    private MapImage(ByteBuffer image) throws IOException {
+        this.image = image;
+        if (image.capacity() < HEADER || image.getInt(0) != MAGIC) {
+            throw new IOException("Not a map image");
+        }
+        if (image.getInt(4) != VERSION) {
+            throw new IOException("Unsupported map image version " + image.getInt(4) + " (expected " + VERSION + ")");
+        }
+        seed = image.getInt(8);
+        countries = image.getInt(12);
+        cities = image.getInt(16);
+        roads = image.getInt(20);
+        int stringCount = image.getInt(24);
+        int stringBytes = image.getInt(28);
+        strings = HEADER;
+        bytes = strings + 4 * (stringCount + 1);
+        countryRecords = bytes + pad(stringBytes);
+        cityRecords = countryRecords + 8 * countries;
+        offsets = cityRecords + 8 * cities;
+        targets = offsets + 4 * (cities + 1);
+        lengths = targets + 4 * roads;
+        positions = lengths + 4 * roads;
+        if (stringCount != countries + cities || image.capacity() != positions + 8L * cities) {
+            throw new IOException("Corrupt map image");
+        }
+    }
+
+    /**
+     * Rounds a number of bytes up to a multiple of 4.
+     */
+    private static int pad(int size) {
+        return (size + 3) & ~3;
+    }
+
+    /**
+     * Memory-maps an image (the file is only read when its pages are used).
+     * @param path the path of the image
+     * @return the image
+     * @throws IOException if the file cannot be mapped or is not an image of this version
+     */
+    public static MapImage open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MapImage(image);
+        }
+    }
+
+    /**
+     * Writes the map of a Game as an image.
+     * @param game the game (whose RoadGraph gives the ids of the cities and the order of the roads)
+     * @param path the path of the image
+     * @throws IOException if the file cannot be written
+     */
+    public static void compile(Game game, Path path) throws IOException {
+        RoadGraph graph = game.getGraph();
+        List<Country> countryList = game.getCountries();
+        int cityCount = graph.getCityCount();
+        int roadCount = graph.getRoadCount();
+        byte[][] names = new byte[countryList.size() + cityCount][];
+        int stringBytes = 0;
+        for (int c = 0; c < countryList.size(); c++) {
+            names[c] = countryList.get(c).getName().getBytes(StandardCharsets.UTF_8);
+            stringBytes += names[c].length;
+        }
+        for (int id = 0; id < cityCount; id++) {
+            names[countryList.size() + id] = graph.getCity(id).getName().getBytes(StandardCharsets.UTF_8);
+            stringBytes += names[countryList.size() + id].length;
+        }
+        long size = HEADER + 4L * (names.length + 1) + pad(stringBytes) + 8L * countryList.size() + 8L * cityCount
+                + 4L * (cityCount + 1) + 8L * roadCount + 8L * cityCount;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The map is too large for an image");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC).putInt(VERSION).putInt(game.getMapSeed()).putInt(countryList.size())
+                    .putInt(cityCount).putInt(roadCount).putInt(names.length).putInt(stringBytes);
+            int offset = 0;
+            for (byte[] name : names) {
+                out.putInt(offset);
+                offset += name.length;
+            }
+            out.putInt(offset);
+            for (byte[] name : names) {
+                out.put(name);
+            }
+            out.position(out.position() + pad(stringBytes) - stringBytes);
+            int first = 0;
+            for (Country country : countryList) {
+                out.putInt(country instanceof MafiaCountry ? MAFIA : 0).putInt(first);
+                first += country.getCities().size();
+            }
+            for (int id = 0; id < cityCount; id++) {
+                City city = graph.getCity(id);
+                int type = city instanceof CapitalCity ? CAPITAL : city instanceof BorderCity ? BORDER : CITY;
+                out.putInt(city.getInitialValue()).putInt(type);
+            }
+            for (int id = 0; id <= cityCount; id++) {
+                out.putInt(graph.getFirstRoad(id));
+            }
+            for (int e = 0; e < roadCount; e++) {
+                out.putInt(graph.getTarget(e));
+            }
+            for (int e = 0; e < roadCount; e++) {
+                out.putInt(graph.getLength(e));
+            }
+            for (int id = 0; id < cityCount; id++) {
+                Point p = game.getPosition(graph.getCity(id));
+                out.putInt(p == null ? NO_POSITION : p.x).putInt(p == null ? NO_POSITION : p.y);
+            }
+            out.force();
+        }
+    }
+
+    /**
+     * Compiles a text map into an image.
+     * @param args [text map] [image]
+     */
+    public static void main(String[] args) throws IOException {
+        String text = args.length > 0 ? args[0] : "network.dat";
+        String image = args.length > 1 ? args[1] : text.replaceFirst("\\.dat$", "") + ".map";
+        Game game = Game.fromFile(text);
+        if (game == null) {
+            System.exit(1);
+        }
+        compile(game, Paths.get(image));
+        System.out.println("Compiled " + text + " (" + game.getGraph().getCityCount() + " cities, "
+                + game.getGraph().getRoadCount() + " roads) into " + image);
+    }
+
+    /**
+     * Returns the seed of the Game command of the map.
+     * @return the seed
+     */
+    public int getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of countries.
+     * @return the number of countries
+     */
+    public int getCountryCount() {
+        return countries;
+    }
+
+    /**
+     * Returns the number of cities.
+     * @return the number of cities
+     */
+    public int getCityCount() {
+        return cities;
+    }
+
+    /**
+     * Returns the number of roads (every direction of a road counts).
+     * @return the number of roads
+     */
+    public int getRoadCount() {
+        return roads;
+    }
+
+    /**
+     * Decodes a string of the string table.
+     */
+    private String string(int index) {
+        int from = image.getInt(strings + 4 * index);
+        int to = image.getInt(strings + 4 * index + 4);
+        byte[] b = new byte[to - from];
+        image.get(bytes + from, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the name of a country.
+     * @param country the index of the country (in the order of Game.getCountries)
+     * @return the name
+     */
+    public String getCountryName(int country) {
+        return string(country);
+    }
+
+    /**
+     * Determines whether a country is a MafiaCountry.
+     * @param country the index of the country
+     * @return true if the country is a MafiaCountry
+     */
+    public boolean isMafia(int country) {
+        return (image.getInt(countryRecords + 8 * country) & MAFIA) != 0;
+    }
+
+    /**
+     * Returns the id of the first city of a country (the cities of country c end right before getFirstCity(c + 1)).
+     * @param country the index of the country (or the number of countries)
+     * @return the id of the first city
+     */
+    public int getFirstCity(int country) {
+        return country == countries ? cities : image.getInt(countryRecords + 8 * country + 4);
+    }
+
+    /**
+     * Returns the name of a city.
+     * @param id the id of the city (in the RoadGraph)
+     * @return the name
+     */
+    public String getCityName(int id) {
+        return string(countries + id);
+    }
+
+    /**
+     * Returns the initial value of a city.
+     * @param id the id of the city
+     * @return the value
+     */
+    public int getValue(int id) {
+        return image.getInt(cityRecords + 8 * id);
+    }
+
+    /**
+     * Returns the type of a city (CITY, BORDER or CAPITAL).
+     * @param id the id of the city
+     * @return the type
+     */
+    public int getType(int id) {
+        return image.getInt(cityRecords + 8 * id + 4);
+    }
+
+    /**
+     * Returns the index of the first road of a city (see RoadGraph.getFirstRoad).
+     * @param id the id of the city (or the number of cities)
+     * @return the index of the first road
+     */
+    public int getFirstRoad(int id) {
+        return image.getInt(offsets + 4 * id);
+    }
+
+    /**
+     * Returns the id of the city a road goes to.
+     * @param road the index of the road
+     * @return the id of the city
+     */
+    public int getTarget(int road) {
+        return image.getInt(targets + 4 * road);
+    }
+
+    /**
+     * Returns the length of a road.
+     * @param road the index of the road
+     * @return the length
+     */
+    public int getLength(int road) {
+        return image.getInt(lengths + 4 * road);
+    }
+
+    /**
+     * Returns the GUI position of a city.
+     * @param id the id of the city
+     * @return the position, or null if the city has no position
+     */
+    public Point getPosition(int id) {
+        int x = image.getInt(positions + 8 * id);
+        if (x == NO_POSITION) {
+            return null;
+        }
+        return new Point(x, image.getInt(positions + 8 * id + 4));
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the startup of a large map (about 1 million roads) from text and from a compiled MapImage.
+ * The synthetic map of LoaderBenchmark is written to a temporary file and compiled, and then every way of
+ * loading it runs in a fresh JVM, which prints the time to load, the heap in use afterwards and the resident set
+ * size of the process (VmRSS, only on Linux):
+ *  - text: Game.fromFile
+ *  - image: Game.fromImage, which builds the same Game without parsing or looking up names
+ *  - graph: MapImage.open and a walk over every road and city value of the image, without creating a Game
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class MapImageBenchmark {
+    private static final int COUNTRIES = 100;
+
+    /**
+     * Runs the benchmark.
+     * @param args [number of cities] (2.5 roads per city), or 'text'/'image'/'graph' and a file to load it once
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 2) {
+            load(args[0], args[1]);
+            return;
+        }
+        int cities = args.length > 0 ? Integer.parseInt(args[0]) : 400000;
+        Path text = Files.createTempFile("map", ".dat");
+        Path image = Files.createTempFile("map", ".map");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(text)) {
+                LoaderBenchmark.syntheticMap(COUNTRIES, cities, 0, line -> {
+                    try {
+                        out.write(line);
+                        out.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            MapImage.compile(Game.fromFile(text.toString()), image);
+            System.out.println("text " + Files.size(text) / (1 << 20) + " MB, image "
+                    + Files.size(image) / (1 << 20) + " MB");
+            System.out.println("load\tms\theap MB\tRSS MB\troads");
+            run("text", text);
+            run("image", image);
+            run("graph", image);
+        } finally {
+            Files.delete(text);
+            Files.delete(image);
+        }
+    }
+
+    /**
+     * Loads a map in a new JVM (with the same heap limit as this one), and prints its output.
+     */
+    private static void run(String mode, Path file) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MapImageBenchmark.class.getName());
+        command.add(mode);
+        command.add(file.toString());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT).start();
+        if (process.waitFor() != 0) {
+            System.out.println(mode + "\tfailed");
+        }
+    }
+
+    /**
+     * Loads a map once, and prints the time, heap, RSS and number of roads.
+     */
+    private static void load(String mode, String file) throws IOException {
+        long start = System.nanoTime();
+        Object loaded;
+        long roads;
+        switch (mode) {
+            case "text":
+            case "image": {
+                Game game = mode.equals("text") ? Game.fromFile(file) : Game.fromImage(file);
+                roads = game.getGraph().getRoadCount();
+                loaded = game;
+                break;
+            }
+            default: {
+                MapImage image = MapImage.open(Paths.get(file));
+                long sum = 0;
+                for (int id = 0; id < image.getCityCount(); id++) {
+                    sum += image.getValue(id);
+                    for (int e = image.getFirstRoad(id); e < image.getFirstRoad(id + 1); e++) {
+                        sum += image.getLength(e) + image.getTarget(e);
+                    }
+                }
+                roads = image.getRoadCount();
+                loaded = sum;
+                break;
+            }
+        }
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long heap = runtime.totalMemory() - runtime.freeMemory();
+        System.out.println(mode + "\t" + String.format("%.0f", ms) + "\t" + heap / (1 << 20) + "\t" + rss() + "\t"
+                + roads);
+        //Keep the map alive until the heap has been measured
+        Reference.reachabilityFence(loaded);
+    }
+
+    /**
+     * Returns the resident set size of this process in MB (or "n/a" if /proc/self/status cannot be read).
+     */
+    private static String rss() {
+        File status = new File("/proc/self/status");
+        try {
+            for (String line : Files.readAllLines(status.toPath())) {
+                if (line.startsWith("VmRSS:")) {
+                    return String.valueOf(Long.parseLong(line.replaceAll("\\D", "")) / 1024);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            //Not Linux
+        }
+        return "n/a";
+    }
+}
@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests compiled maps, which are memory-mapped instead of parsed
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class MapImageTest {
+    private Game text;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        text = Game.fromFile("network.dat");
+        file = Files.createTempFile("network", ".map");
+        MapImage.compile(text, file);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    /**
+     * Plays a game on a shared map with the default players, and returns the money of the players
+     */
+    private int[] play(Game map, int seed) {
+        Game game = new Game(map, seed, new Settings());
+        game.addDefaultPlayers();
+        game.getRandom().setSeed(seed);
+        game.reset();
+        while (game.ongoing()) {
+            game.advance();
+        }
+        int[] money = new int[game.getPlayers().size()];
+        for (int i = 0; i < money.length; i++) {
+            money[i] = game.getPlayers().get(i).getMoney();
+        }
+        return money;
+    }
+
+    @Test
+    public void sameMap() throws IOException {
+        Game image = Game.fromImage(MapImage.open(file), new Settings());
+        RoadGraph expected = text.getGraph();
+        RoadGraph actual = image.getGraph();
+        assertEquals(text.getMapSeed(), image.getMapSeed());
+        assertEquals(text.getSeed(), image.getSeed());
+        assertEquals(text.getPlayers().get(0).getPosition().getFrom().getName(),
+                image.getPlayers().get(0).getPosition().getFrom().getName());
+        assertEquals(expected.getCityCount(), actual.getCityCount());
+        assertEquals(expected.getRoadCount(), actual.getRoadCount());
+        for (int id = 0; id < expected.getCityCount(); id++) {
+            City city = actual.getCity(id);
+            assertEquals(expected.getCity(id).getName(), city.getName());
+            assertEquals(expected.getCity(id).getCountry().getName(), city.getCountry().getName());
+            assertEquals(expected.getCity(id).getInitialValue(), city.getInitialValue());
+            assertEquals(expected.getFirstRoad(id), actual.getFirstRoad(id));
+            assertEquals(text.getPosition(expected.getCity(id)), image.getPosition(city));
+            assertSame(city, image.getCity(city.getName()));
+        }
+        for (int e = 0; e < expected.getRoadCount(); e++) {
+            assertEquals(expected.getTarget(e), actual.getTarget(e));
+            assertEquals(expected.getLength(e), actual.getLength(e));
+        }
+        for (int seed = 0; seed < 3; seed++) {
+            assertArrayEquals(play(text, seed), play(image, seed));
+        }
+    }
+
+    @Test
+    public void positionsAfterChange() throws IOException {
+        //The positions are kept when the map is changed and the ids are assigned again
+        Game image = Game.fromImage(MapImage.open(file), new Settings());
+        City oslo = image.getCity("Oslo");
+        Country country = new Country("Atlantis");
+        country.addCity(new City("Aaa", 10, country));
+        image.addCountry(country);
+        image.getGraph();
+        assertEquals(text.getPosition(text.getCity("Oslo")), image.getPosition(oslo));
+        assertNull(image.getPosition(image.getCity("Aaa")));
+        //Also when the positions are asked for before the graph is rebuilt
+        Game other = Game.fromImage(MapImage.open(file), new Settings());
+        City bergen = other.getCity("Bergen");
+        Country lemuria = new Country("Lemuria");
+        lemuria.addCity(new City("Bbb", 10, lemuria));
+        other.addCountry(lemuria);
+        assertEquals(text.getPosition(text.getCity("Bergen")), other.getPosition(bergen));
+        assertNull(other.getPosition(other.getCity("Bbb")));
+    }
+
+    @Test
+    public void version() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, MapImage.VERSION + 1), 4);
+        }
+        IOException e = assertThrows(IOException.class, () -> MapImage.open(file));
+        assertTrue(e.getMessage().contains("version"));
+    }
+}
@@ -0,0 +1,307 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the commands of a map file (see Game.fromFile) from a channel in a single pass.
+ * The bytes are read into a fixed buffer, and every line is split into tokens in place: a token is a run of
+ * characters other than spaces and tabs, and the tokens are only decoded (as UTF-8) when a String is needed,
+ * so numbers and command names are read without creating Strings. The memory used is the buffer and the
+ * longest line, whatever the size of the file.
+ *
+ * The lines are split like Files.readAllLines (at \n, \r or \r\n), and lines which are empty, start with a space
+ * or a tab (as the loader used to split them into an empty command), or whose command starts with // are skipped.
+ * Every line is checked to be valid UTF-8, also the skipped lines.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class MapReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE); // Bytes read but not yet split into lines
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+    private boolean eof;            // Whether the channel has been read to the end
+    private boolean skipNewline;    // Whether the last line ended with \r (so a following \n ends no line)
+
+    private byte[] line = new byte[256];    // Bytes of the current line
+    private int length;                     // Number of bytes of the current line
+    private boolean ascii;                  // Whether the current line only has ASCII bytes
+    private int[] starts = new int[8];      // Start of every token of the current line
+    private int[] ends = new int[8];        // End (exclusive) of every token of the current line
+    private int tokens;                     // Number of tokens of the current line
+    private long lines;                     // Number of lines read (also the skipped lines)
+
+    /**
+     * Creates a reader of a channel (which is closed by close).
+     * @param channel the channel to read the map from
+     */
+    public MapReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * Moves to the next command (the next line which is not skipped).
+     * @return true if there is a command, false at the end of the file
+     * @throws IOException if the channel cannot be read or a line is not valid UTF-8
+     */
+    public boolean next() throws IOException {
+        while (readLine()) {
+            if (!ascii) {
+                checkEncoding();
+            }
+            split();
+            if (tokens > 0 && starts[0] == 0 && !blank(0) && !startsWith(0, "//")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the next line into 'line'.
+     * @return false if there are no more lines
+     */
+    private boolean readLine() throws IOException {
+        length = 0;
+        ascii = true;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (eof || !fill()) {
+                    lines += length > 0 ? 1 : 0;
+                    return length > 0;
+                }
+            }
+            byte[] bytes = buffer.array();
+            int pos = buffer.position();
+            int limit = buffer.limit();
+            if (skipNewline && bytes[pos] == '\n') {
+                pos++;
+            }
+            skipNewline = false;
+            int end = pos;
+            while (end < limit && bytes[end] != '\n' && bytes[end] != '\r') {
+                end++;
+            }
+            append(bytes, pos, end);
+            if (end < limit) {
+                skipNewline = bytes[end] == '\r';
+                buffer.position(end + 1);
+                lines++;
+                return true;
+            }
+            buffer.position(limit);
+        }
+    }
+
+    /**
+     * Reads more bytes from the channel into the buffer.
+     * @return false if the end of the channel has been reached
+     */
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        buffer.flip();
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Appends bytes of the buffer to the current line.
+     */
+    private void append(byte[] bytes, int from, int to) {
+        int count = to - from;
+        if (length + count > line.length) {
+            line = Arrays.copyOf(line, Math.max(2 * line.length, length + count));
+        }
+        for (int i = from; i < to; i++) {
+            ascii &= bytes[i] >= 0;
+        }
+        System.arraycopy(bytes, from, line, length, count);
+        length += count;
+    }
+
+    /**
+     * Throws a MalformedInputException if the current line is not valid UTF-8.
+     */
+    private void checkEncoding() throws CharacterCodingException {
+        decoder.reset().decode(ByteBuffer.wrap(line, 0, length));
+    }
+
+    /**
+     * Splits the current line into tokens.
+     */
+    private void split() {
+        tokens = 0;
+        int i = 0;
+        while (i < length) {
+            while (i < length && (line[i] == ' ' || line[i] == '\t')) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            if (tokens == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * tokens);
+                ends = Arrays.copyOf(ends, 2 * tokens);
+            }
+            starts[tokens] = i;
+            while (i < length && line[i] != ' ' && line[i] != '\t') {
+                i++;
+            }
+            ends[tokens++] = i;
+        }
+    }
+
+    /**
+     * Determines whether a token only consists of control characters (which String.trim removes).
+     */
+    private boolean blank(int token) {
+        for (int i = starts[token]; i < ends[token]; i++) {
+            if ((line[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether a token starts with an ASCII prefix.
+     */
+    private boolean startsWith(int token, String prefix) {
+        if (ends[token] - starts[token] < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line[starts[token] + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of tokens of the current command (including the command itself).
+     * @return the number of tokens
+     */
+    public int size() {
+        return tokens;
+    }
+
+    /**
+     * Returns the number of lines read so far (including the skipped lines).
+     * @return the number of lines
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Determines whether a token is a given word, ignoring the case of ASCII letters.
+     * @param token the index of the token (0 is the command)
+     * @param word the word, in lower case ASCII
+     * @return true if the token is the word
+     */
+    public boolean is(int token, String word) {
+        check(token);
+        if (ends[token] - starts[token] != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            int b = line[starts[token] + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether a token contains // (such tokens are not reported as unknown commands).
+     * @param token the index of the token
+     * @return true if the token contains //
+     */
+    public boolean isComment(int token) {
+        check(token);
+        for (int i = starts[token]; i + 1 < ends[token]; i++) {
+            if (line[i] == '/' && line[i + 1] == '/') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decodes a token.
+     * @param token the index of the token
+     * @return the token as a String
+     */
+    public String text(int token) {
+        check(token);
+        return new String(line, starts[token], ends[token] - starts[token], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a token as an int, like Integer.parseInt (an optional sign followed by decimal digits).
+     * @param token the index of the token
+     * @return the value of the token
+     * @throws NumberFormatException if the token is not an int
+     */
+    public int number(int token) {
+        check(token);
+        int i = starts[token];
+        int end = ends[token];
+        boolean negative = line[i] == '-';
+        if (negative || line[i] == '+') {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + text(token) + "\"");
+        }
+        //Accumulate negatively, so Integer.MIN_VALUE can be read
+        long limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + text(token) + "\"");
+            }
+            value = value * 10 - digit;
+            if (value < limit) {
+                throw new NumberFormatException("For input string: \"" + text(token) + "\"");
+            }
+        }
+        return (int) (negative ? value : -value);
+    }
+
+    /**
+     * Throws an ArrayIndexOutOfBoundsException if the current command has no such token.
+     */
+    private void check(int token) {
+        if (token >= tokens) {
+            throw new ArrayIndexOutOfBoundsException("Index " + token + " out of bounds for length " + tokens);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the streaming tokenizer of map files
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class MapReaderTest {
+
+    /**
+     * Creates a reader of some bytes, which are read one at a time (so every line crosses the end of the buffer)
+     */
+    private MapReader reader(byte[] bytes) {
+        InputStream in = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        return new MapReader(Channels.newChannel(in));
+    }
+
+    /**
+     * Reads all commands, with their tokens separated by '|'
+     */
+    private List<String> commands(String text) throws IOException {
+        List<String> commands = new ArrayList<>();
+        MapReader reader = reader(text.getBytes(StandardCharsets.UTF_8));
+        while (reader.next()) {
+            StringBuilder sb = new StringBuilder(reader.text(0));
+            for (int i = 1; i < reader.size(); i++) {
+                sb.append('|').append(reader.text(i));
+            }
+            commands.add(sb.toString());
+        }
+        return commands;
+    }
+
+    @Test
+    public void tokens() throws IOException {
+        String text = "// comment\r\nGame\t\t0\rCountry  Sweden\tmafia\n\n   City Oslo 5\n"
+                + "City\tLuleå  95 border \r\n\t\t\n//Road a b\nRoad a b 3 // c";
+        assertEquals(List.of("Game|0", "Country|Sweden|mafia", "City|Luleå|95|border", "Road|a|b|3|//|c"),
+                commands(text));
+    }
+
+    @Test
+    public void numbers() throws IOException {
+        MapReader reader = reader("Road a +12 -7 2147483647 -2147483648 2147483648 1x -\nCITY".getBytes());
+        assertTrue(reader.next());
+        assertEquals(12, reader.number(2));
+        assertEquals(-7, reader.number(3));
+        assertEquals(Integer.MAX_VALUE, reader.number(4));
+        assertEquals(Integer.MIN_VALUE, reader.number(5));
+        for (int i = 6; i <= 8; i++) {
+            int token = i;
+            assertThrows(NumberFormatException.class, () -> reader.number(token));
+        }
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> reader.number(9));
+        assertTrue(reader.is(0, "road"));
+        assertTrue(reader.next());
+        assertTrue(reader.is(0, "city"));
+        assertFalse(reader.next());
+        assertEquals(2, reader.getLines());
+    }
+
+    @Test
+    public void malformed() {
+        byte[] bytes = {'/', '/', ' ', (byte) 0xC3, '\n'};
+        assertThrows(MalformedInputException.class, () -> reader(bytes).next());
+    }
+
+    @Test
+    public void network() throws IOException {
+        //The map is loaded the same way from the file and from its lines
+        Game file = Game.fromFile("network.dat");
+        Game lines = Game.fromLines(Files.readAllLines(Paths.get("network.dat")), new Settings());
+        assertEquals(file.getCountries().size(), lines.getCountries().size());
+        assertEquals(file.getGraph().getCityCount(), lines.getGraph().getCityCount());
+        assertEquals(file.getGraph().getRoadCount(), lines.getGraph().getRoadCount());
+        assertEquals(4, file.getCountries().size());
+        assertNotNull(file.getCity("Luleå"));
+    }
+}
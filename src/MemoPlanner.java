@@ -0,0 +1,159 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds the same path as DepthFirstPlanner, but memoizes the best path of every search state.
+ * The best path from a city with n steps left only depends on how many times the cities within
+ * n steps have been visited, so paths which visit the same cities in a different order share
+ * their subsearch. The cities within reach of a city are found once per RoadGraph and depth, when the search
+ * first comes to the city (see NearestCities), and the state only looks at those cities.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class MemoPlanner extends Planner {
+    private RoadGraph graph;                // Graph of the current search
+    private NearestCities nearest;          // Cities within reach of the searched cities
+    private Map<State, PlayerPath> memo;    // Best path of every state in the current search
+    private int[] visits;                   // Number of visits of every city in the current search
+
+    /**
+     * Creates a new memoizing planner.
+     * @param maxDepth the number of steps to look forward
+     */
+    public MemoPlanner(int maxDepth) {
+        super(maxDepth);
+        memo = new HashMap<>();
+    }
+
+    @Override
+    public Planner copy() {
+        return new MemoPlanner(getMaxDepth());
+    }
+
+    @Override
+    public PlayerPath bestPath(SmartPlayer player, City c, int n) {
+        prepare(player.getGame().getGraph(), n);
+        if (player.getExpectedPayoffs() != null) {
+            player.getExpectedPayoffs().update(player);
+        }
+        memo.clear();
+        Arrays.fill(visits, 0);
+        visits[c.getId()] = 1;
+        return search(player, c, n);
+    }
+
+    /**
+     * Returns the number of states memoized by the last search.
+     * @return the number of states
+     */
+    public int getStates() {
+        return memo.size();
+    }
+
+    /**
+     * Calculates the n-steps optimal route from a city, given the visits in 'visits'.
+     * The returned path is shared through the memo and must not be changed.
+     * @param player the player who is searching
+     * @param c the current city
+     * @param n the number of steps to look forward
+     * @return the best path
+     */
+    private PlayerPath search(SmartPlayer player, City c, int n) {
+        State state = new State(c.getId(), n);
+        PlayerPath p = memo.get(state);
+        if (p != null) {
+            return p;
+        }
+        p = new PlayerPath(player);
+        int id = c.getId();
+        for (int e = graph.getFirstRoad(id); e < graph.getFirstRoad(id + 1); e++) {
+            if (graph.getLength(e) <= n) {
+                int to = graph.getTarget(e);
+                int v = ++visits[to];
+                PlayerPath subPlayerPath = new PlayerPath(search(player, graph.getCity(to), n - graph.getLength(e)));
+                visits[to]--;
+                subPlayerPath.addRoad(graph.getRoad(e), v);
+                if (subPlayerPath.compareTo(p) == 1) {
+                    p = subPlayerPath;
+                }
+            }
+        }
+        memo.put(state, p);
+        return p;
+    }
+
+    /**
+     * Makes room for a search of n steps in a given graph (the cities within reach are found again if the graph
+     * has changed, or if the search reaches further than before).
+     * @param graph the graph to search
+     * @param n the number of steps to look forward
+     */
+    private void prepare(RoadGraph graph, int n) {
+        if (this.graph != graph) {
+            this.graph = graph;
+            visits = new int[graph.getCityCount()];
+            nearest = null;
+        }
+        if (nearest == null || n > nearest.getRadius()) {
+            nearest = new NearestCities(graph, n);
+        }
+    }
+
+    /**
+     * A search state: the current city, the steps left and the visits of every city within reach.
+     */
+    private class State {
+        private int[] key;
+        private int hash;
+
+        /**
+         * Creates the state of the current search at a given city.
+         * @param city the index of the current city
+         * @param n the number of steps left
+         */
+        State(int city, int n) {
+            int[] cities = nearest.getCities(city);
+            int[] distances = nearest.getDistances(city);
+            int reachable = 0;
+            while (reachable < cities.length && distances[reachable] <= n) {
+                reachable++;
+            }
+            int visited = visits[city] > 0 ? 1 : 0;
+            for (int i = 0; i < reachable; i++) {
+                if (visits[cities[i]] > 0) {
+                    visited++;
+                }
+            }
+            //The visits of the city and of the cities within n steps (in the order of their distance)
+            key = new int[2 + 2 * visited];
+            key[0] = city;
+            key[1] = n;
+            int k = 2;
+            if (visits[city] > 0) {
+                key[k++] = city;
+                key[k++] = visits[city];
+            }
+            for (int i = 0; i < reachable; i++) {
+                if (visits[cities[i]] > 0) {
+                    key[k++] = cities[i];
+                    key[k++] = visits[cities[i]];
+                }
+            }
+            hash = Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object otherObject) {
+            if (this == otherObject) return true;
+            if (otherObject == null) return false;
+            if (getClass() != otherObject.getClass()) return false;
+            return Arrays.equals(key, ((State) otherObject).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
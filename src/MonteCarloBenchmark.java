@@ -0,0 +1,76 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Plays a batch of seeds on the shipped map ('network.dat') with the default players and a MonteCarloPlayer,
+ * and reports the decision latency and rollouts per second of the MonteCarloPlayer, and how often it ends the game
+ * with more money than each of the other (computer) players.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class MonteCarloBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args [number of games] [rollouts per decision] [number of trees] [time budget in milliseconds]
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int rollouts = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        int trees = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long budget = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        Game map = Game.fromLines(Files.readAllLines(Paths.get("network.dat")), new Settings());
+        String[] names = null;
+        int[] wins = null;
+        long[] money = null;
+        long decisions = 0, searchTime = 0, maxSearchTime = 0, totalRollouts = 0, mctsMoney = 0;
+        for (int seed = 0; seed < games; seed++) {
+            Game game = new Game(map, seed, new Settings(map.getSettings()));
+            game.addDefaultPlayers();
+            MonteCarloPlayer mcts = new MonteCarloPlayer(game.getRandomStartingPosition());
+            mcts.setRollouts(rollouts);
+            mcts.setTrees(trees);
+            mcts.setTimeBudget(budget);
+            game.getPlayers().add(mcts);
+            game.getRandom().setSeed(seed);
+            game.reset();
+            while (game.ongoing()) {
+                game.advance();
+            }
+            if (names == null) {
+                names = new String[game.getPlayers().size()];
+                wins = new int[names.length];
+                money = new long[names.length];
+            }
+            for (int i = 0; i < names.length; i++) {
+                Player p = game.getPlayers().get(i);
+                names[i] = p.getName();
+                money[i] += p.getMoney();
+                if (mcts.getMoney() > p.getMoney()) {
+                    wins[i]++;
+                }
+            }
+            decisions += mcts.getDecisions();
+            searchTime += mcts.getSearchTime();
+            maxSearchTime = Math.max(maxSearchTime, mcts.getMaxSearchTime());
+            totalRollouts += mcts.getRollouts();
+            mctsMoney += mcts.getMoney();
+        }
+
+        System.out.println("decisions\t" + decisions);
+        System.out.println("latency (ms)\t" + String.format("%.1f", searchTime / 1e6 / decisions)
+                + " (max " + String.format("%.1f", maxSearchTime / 1e6) + ")");
+        System.out.println("rollouts/s\t" + String.format("%.0f", totalRollouts / (searchTime / 1e9)));
+        System.out.println();
+        System.out.println("player\tavg money\tMonte Carlo wins");
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals("GUI Player")) {
+                continue;
+            }
+            System.out.println(names[i] + "\t" + money[i] / games
+                    + (names[i].equals("Monte Carlo Player") ? "\t-" : "\t" + wins[i] + "/" + games));
+        }
+    }
+}
@@ -0,0 +1,382 @@
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Models a player which chooses the next city by Monte Carlo Tree Search on forks of the game (see Game.fork).
+ * Every iteration forks the game, follows the tree of road choices (chosen by UCB1) until it reaches a choice which
+ * has not been tried, and then plays a randomized greedy rollout until the horizon; the money gained is added to
+ * the statistics of every choice on the way. The tree is open-loop (it stores road choices, not states), as the
+ * arrivals are random, and every iteration reseeds the Random of its fork, so it meets other robberies and bonuses.
+ * Only this player is played in the forks; the other players are not modelled.
+ *
+ * Several trees are searched at once (one per thread) and their statistics of the first choice are added up.
+ * The seed of every iteration is derived from the seed of the game, the step and the iteration, so with a budget of
+ * rollouts (and no time budget) the player makes the same decisions for the same seed and number of trees,
+ * however the threads run. As the game is forked, it cannot use random streams (see Game.setRandomAlgorithm).
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class MonteCarloPlayer extends Player {
+    private static final double EXPLORATION = Math.sqrt(2); // Exploration constant of UCB1
+    private static final double EPSILON = 0.3;              // Probability of a random road in a rollout
+    private static ExecutorService pool;                    // Threads shared by all MonteCarloPlayers
+
+    private int rollouts = 1024;        // Number of rollouts per decision (in all trees)
+    private long timeBudget;            // Time per decision in nanoseconds (0 if only the rollouts count)
+    private int horizon = 150;          // Number of steps played in an iteration
+    private int trees = Runtime.getRuntime().availableProcessors(); // Number of trees (threads) per decision
+    private Iteration iteration;        // Iteration which chooses the roads (in the forks only)
+
+    private int decisions;              // Number of decisions so far
+    private long searchTime;            // Total time of the decisions in nanoseconds
+    private long maxSearchTime;         // Longest decision in nanoseconds
+    private long totalRollouts;         // Number of rollouts of all decisions
+
+    /**
+     * Creates a new MonteCarloPlayer with the specified position.
+     * @param pos   Position of this player.
+     */
+    public MonteCarloPlayer(Position pos) {
+        super(pos);
+    }
+
+    @Override
+    public void decide() {
+        City city = getPosition().getTo();
+        if(iteration != null) {
+            setPosition(getCountry().readyToTravel(city, iteration.next(city)));
+            return;
+        }
+        long start = System.nanoTime();
+        Game game = getGame();
+        //Fork the game once with only this player, so the iterations only copy one player
+        Game base = game.fork();
+        Player self = base.getPlayers().get(game.getPlayers().indexOf(this));
+        base.getPlayers().clear();
+        base.getPlayers().add(self);
+        long deadline = timeBudget > 0 ? start + timeBudget : Long.MAX_VALUE;
+        int perTree = Math.max(1, rollouts / trees);
+        List<Node> roots = new ArrayList<>();
+        if(trees == 1) {
+            roots.add(search(base, 0, perTree, deadline));
+        } else {
+            List<Future<Node>> futures = new ArrayList<>();
+            for(int t = 0; t < trees; t++) {
+                int tree = t;
+                futures.add(getPool().submit(() -> search(base, tree, perTree, deadline)));
+            }
+            try {
+                for(Future<Node> f : futures) {
+                    roots.add(f.get());
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch(ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        //Choose the road which was tried most often in all trees (ties are broken by the average money)
+        Node root = roots.get(0);
+        int best = -1;
+        long bestVisits = 0;
+        double bestTotal = 0;
+        for(int i = 0; i < root.targets.length; i++) {
+            long visits = 0;
+            double total = 0;
+            for(Node r : roots) {
+                visits += r.visits[i];
+                total += r.totals[i];
+            }
+            if(best < 0 || visits > bestVisits || visits == bestVisits && total > bestTotal) {
+                best = i;
+                bestVisits = visits;
+                bestTotal = total;
+            }
+            totalRollouts += visits;
+        }
+        if(best >= 0) {
+            setPosition(getCountry().readyToTravel(city, game.getGraph().getCity(root.targets[best])));
+        }
+        long time = System.nanoTime() - start;
+        decisions++;
+        searchTime += time;
+        maxSearchTime = Math.max(maxSearchTime, time);
+    }
+
+    /**
+     * Searches one tree.
+     * @param base      The fork of the game with only this player (which is not changed).
+     * @param tree      The number of the tree (for the seeds).
+     * @param count     The maximal number of iterations.
+     * @param deadline  The time (System.nanoTime) at which the search stops.
+     * @return The root of the tree.
+     */
+    private Node search(Game base, int tree, int count, long deadline) {
+        Node root = new Node();
+        MonteCarloPlayer self = (MonteCarloPlayer) base.getPlayers().get(0);
+        int start = self.getMoney();
+        int steps = Math.min(horizon, base.getStepsLeft() - 1);
+        for(int i = 0; i < count && (i == 0 || System.nanoTime() < deadline); i++) {
+            long seed = RandomStreams.mix(base.getSeed() * 0x9E3779B97F4A7C15L + base.getStepsLeft() * 0xBF58476D1CE4E5B9L
+                    + (long) tree * 0x94D049BB133111EBL + i);
+            Game fork = base.fork();
+            fork.getRandom().setSeed(seed);
+            MonteCarloPlayer me = (MonteCarloPlayer) fork.getPlayers().get(0);
+            me.iteration = new Iteration(fork, root, seed);
+            me.decide();
+            for(int played = 0; played < steps && fork.ongoing(); ) {
+                played += fork.advance();
+            }
+            me.iteration.update(me.getMoney() - start);
+        }
+        return root;
+    }
+
+    /**
+     * Returns the threads shared by all MonteCarloPlayers (daemon threads, one per processor).
+     */
+    private static synchronized ExecutorService getPool() {
+        if(pool == null) {
+            pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "MonteCarloPlayer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return pool;
+    }
+
+    /**
+     * Creates a copy of this player, which has no statistics and is not in an iteration.
+     */
+    @Override
+    public MonteCarloPlayer copy() {
+        MonteCarloPlayer p = (MonteCarloPlayer) super.copy();
+        p.iteration = null;
+        p.decisions = 0;
+        p.searchTime = 0;
+        p.maxSearchTime = 0;
+        p.totalRollouts = 0;
+        return p;
+    }
+
+    /**
+     * Changes the number of rollouts per decision (which are divided between the trees).
+     * @param rollouts  The number of rollouts.
+     */
+    public void setRollouts(int rollouts) {
+        this.rollouts = rollouts;
+    }
+
+    /**
+     * Changes the time per decision. The search stops when either the rollouts or the time are used up;
+     * with a time budget the decisions depend on the speed of the computer.
+     * @param millis    The time in milliseconds (0 to only count the rollouts).
+     */
+    public void setTimeBudget(long millis) {
+        this.timeBudget = millis * 1000000;
+    }
+
+    /**
+     * Changes the number of steps played in every iteration.
+     * @param horizon   The number of steps.
+     */
+    public void setHorizon(int horizon) {
+        this.horizon = horizon;
+    }
+
+    /**
+     * Changes the number of trees which are searched at once (one per thread).
+     * @param trees     The number of trees.
+     */
+    public void setTrees(int trees) {
+        this.trees = trees;
+    }
+
+    /**
+     * Returns the number of decisions this player has made.
+     * @return The number of decisions.
+     */
+    public int getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Returns the total time of the decisions of this player.
+     * @return The time in nanoseconds.
+     */
+    public long getSearchTime() {
+        return searchTime;
+    }
+
+    /**
+     * Returns the time of the longest decision of this player.
+     * @return The time in nanoseconds.
+     */
+    public long getMaxSearchTime() {
+        return maxSearchTime;
+    }
+
+    /**
+     * Returns the number of rollouts of all decisions of this player.
+     * @return The number of rollouts.
+     */
+    public long getRollouts() {
+        return totalRollouts;
+    }
+
+    @Override
+    public String getName() {
+        return "Monte Carlo Player";
+    }
+
+    @Override
+    public Color getColor() {
+        return new Color(0,170,160);
+    }
+
+    /**
+     * A choice of road in a tree: the roads which can be chosen next, and how often and with which money each
+     * of them has been tried.
+     */
+    private static class Node {
+        int[] targets;          // Ids of the cities which can be travelled to (null until the node is reached)
+        int[] visits;           // Number of iterations through every road
+        double[] totals;        // Total money gained by the iterations through every road
+        Node[] children;        // Node after every road (null until the road has been tried)
+        int count;              // Number of iterations through this node
+
+        /**
+         * Lists the roads from a city which can be travelled before the game ends.
+         */
+        void expand(RoadGraph graph, City city, int stepsLeft) {
+            int id = city.getId();
+            int n = 0;
+            targets = new int[graph.getFirstRoad(id + 1) - graph.getFirstRoad(id)];
+            for(int e = graph.getFirstRoad(id); e < graph.getFirstRoad(id + 1); e++) {
+                if(graph.getLength(e) <= stepsLeft) {
+                    targets[n++] = graph.getTarget(e);
+                }
+            }
+            targets = Arrays.copyOf(targets, n);
+            visits = new int[n];
+            totals = new double[n];
+            children = new Node[n];
+        }
+    }
+
+    /**
+     * One iteration of a search: chooses the roads of this player in a fork, first by the tree and then by the
+     * randomized greedy rollout, and remembers the path through the tree.
+     */
+    private static class Iteration {
+        private final Game fork;
+        private final CopyableRandom random;
+        private final List<Node> nodes = new ArrayList<>();
+        private final List<Integer> choices = new ArrayList<>();
+        private Node node;      // Node of the next choice (null in the rollout)
+
+        Iteration(Game fork, Node root, long seed) {
+            this.fork = fork;
+            this.random = new CopyableRandom(~seed);
+            this.node = root;
+        }
+
+        /**
+         * Chooses the next city from a city.
+         */
+        City next(City city) {
+            RoadGraph graph = fork.getGraph();
+            if(node == null) {
+                return rollout(graph, city);
+            }
+            if(node.targets == null) {
+                node.expand(graph, city, fork.getStepsLeft());
+            }
+            if(node.targets.length == 0) {
+                node = null;
+                return city;
+            }
+            int choice = select(node);
+            nodes.add(node);
+            choices.add(choice);
+            if(node.children[choice] == null) {
+                node.children[choice] = new Node();
+                node = null;
+            } else {
+                node = node.children[choice];
+            }
+            return graph.getCity(nodes.get(nodes.size() - 1).targets[choice]);
+        }
+
+        /**
+         * Chooses a road by UCB1 (a road which has not been tried is chosen first).
+         * The averages are divided by the largest average, so they are comparable to the exploration term.
+         */
+        private int select(Node n) {
+            double scale = 1;
+            for(int i = 0; i < n.targets.length; i++) {
+                if(n.visits[i] == 0) {
+                    return i;
+                }
+                scale = Math.max(scale, n.totals[i] / n.visits[i]);
+            }
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for(int i = 0; i < n.targets.length; i++) {
+                double score = n.totals[i] / n.visits[i] / scale
+                        + EXPLORATION * Math.sqrt(Math.log(n.count) / n.visits[i]);
+                if(score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Chooses the road with the most value per step, or (with probability EPSILON) a random road.
+         */
+        private City rollout(RoadGraph graph, City city) {
+            int id = city.getId();
+            int first = graph.getFirstRoad(id);
+            int roads = graph.getFirstRoad(id + 1) - first;
+            if(roads == 0) {
+                return city;
+            }
+            if(random.nextDouble() < EPSILON) {
+                return graph.getCity(graph.getTarget(first + random.nextInt(roads)));
+            }
+            double best = -1;
+            int bestCity = id;
+            for(int e = first; e < first + roads; e++) {
+                double value = fork.getValue(graph.getCity(graph.getTarget(e))) / (double) graph.getLength(e);
+                if(value > best) {
+                    bestCity = graph.getTarget(e);
+                    best = value;
+                }
+            }
+            return graph.getCity(bestCity);
+        }
+
+        /**
+         * Adds the money gained by this iteration to the choices on its path.
+         */
+        void update(int money) {
+            for(int i = 0; i < nodes.size(); i++) {
+                Node n = nodes.get(i);
+                int choice = choices.get(i);
+                n.count++;
+                n.visits[choice]++;
+                n.totals[choice] += money;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the MonteCarloPlayer, which searches forks of the game it plays
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class MonteCarloPlayerTest {
+    private Game map;
+
+    @BeforeEach
+    public void setUp() {
+        map = Game.fromFile("network.dat");
+    }
+
+    /**
+     * Plays a game with the default players and a MonteCarloPlayer to the end, with step() or advance()
+     */
+    private Game play(int seed, boolean advance) {
+        Game game = new Game(map, seed, new Settings(map.getSettings()));
+        game.addDefaultPlayers();
+        MonteCarloPlayer mcts = new MonteCarloPlayer(game.getRandomStartingPosition());
+        mcts.setRollouts(32);
+        mcts.setTrees(2);
+        mcts.setHorizon(60);
+        game.getPlayers().add(mcts);
+        game.getRandom().setSeed(seed);
+        game.reset();
+        while (game.ongoing()) {
+            if (advance) {
+                game.advance();
+            } else {
+                game.step();
+            }
+        }
+        return game;
+    }
+
+    private MonteCarloPlayer find(Game game) {
+        for (Player p : game.getPlayers()) {
+            if (p instanceof MonteCarloPlayer) {
+                return (MonteCarloPlayer) p;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void sameDecisions() {
+        //With a budget of rollouts the searches only depend on the seed, and forking the game while it is
+        //advanced does not move the other players
+        Game game = play(1, true);
+        Game again = play(1, true);
+        Game stepped = play(1, false);
+        assertTrue(find(game).getDecisions() > 0);
+        //Decisions at the end of the game, when no road can be travelled to the end, have no rollouts
+        assertTrue(find(game).getRollouts() > 0);
+        assertTrue(find(game).getRollouts() <= find(game).getDecisions() * 32L);
+        assertEquals(0, find(game).getRollouts() % 32);
+        for (int i = 0; i < game.getPlayers().size(); i++) {
+            assertEquals(game.getPlayers().get(i).getMoney(), again.getPlayers().get(i).getMoney());
+            assertEquals(game.getPlayers().get(i).getMoney(), stepped.getPlayers().get(i).getMoney());
+        }
+    }
+
+    @Test
+    public void copy() {
+        Game game = new Game(map, 0, new Settings(map.getSettings()));
+        MonteCarloPlayer mcts = new MonteCarloPlayer(game.getRandomStartingPosition());
+        game.getPlayers().add(mcts);
+        game.reset();
+        while (mcts.getDecisions() == 0) {
+            game.advance();
+        }
+        MonteCarloPlayer copy = mcts.copy();
+        assertEquals(0, copy.getDecisions());
+        assertEquals(0, copy.getRollouts());
+        assertEquals(mcts.getMoney(), copy.getMoney());
+    }
+}
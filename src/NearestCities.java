@@ -0,0 +1,121 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * The cities within a given distance of the cities of a RoadGraph, sorted by their distance.
+ * The cities near a city are found by Dijkstra's algorithm the first time they are asked for, and the search stops
+ * at the given distance, so only the cities which are asked about and their surroundings take memory.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+class NearestCities {
+    private final RoadGraph graph;      // Graph of the cities
+    private final int radius;           // Largest distance of the cities which are kept
+    private final int[][] cities;       // Cities within 'radius' of every city, by distance (null until needed)
+    private final int[][] distances;    // Distances of those cities
+    private final int[] distance;       // Distances of Dijkstra's algorithm (MAX_VALUE for the cities not reached)
+    private final int[] touched;        // Cities whose distance has been set by Dijkstra's algorithm
+
+    /**
+     * Creates the nearest cities of a graph (none are found until they are asked for).
+     * @param graph the graph
+     * @param radius the largest distance of the cities which are kept
+     */
+    NearestCities(RoadGraph graph, int radius) {
+        this.graph = graph;
+        this.radius = radius;
+        int size = graph.getCityCount();
+        cities = new int[size][];
+        distances = new int[size][];
+        distance = new int[size];
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        touched = new int[size];
+    }
+
+    /**
+     * Returns the graph of the cities.
+     * @return the graph
+     */
+    RoadGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the largest distance of the cities which are kept.
+     * @return the distance
+     */
+    int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Returns the other cities within the radius of a city, sorted by their distance.
+     * @param city the index of the city
+     * @return the indices of the cities (must not be changed)
+     */
+    int[] getCities(int city) {
+        if (cities[city] == null) {
+            find(city);
+        }
+        return cities[city];
+    }
+
+    /**
+     * Returns the distances of the cities returned by getCities.
+     * @param city the index of the city
+     * @return the distances (must not be changed)
+     */
+    int[] getDistances(int city) {
+        if (cities[city] == null) {
+            find(city);
+        }
+        return distances[city];
+    }
+
+    /**
+     * Finds the shortest distances from a city to the other cities up to the radius (by Dijkstra's algorithm),
+     * and sorts the cities within that distance by their distance.
+     * @param city the index of the city
+     */
+    private void find(int city) {
+        distance[city] = 0;
+        touched[0] = city;
+        int reached = 1;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        queue.add(new long[] {0, city});
+        int count = 0;
+        int[] order = new int[16];
+        while (!queue.isEmpty()) {
+            long[] head = queue.poll();
+            int u = (int) head[1];
+            if (head[0] > distance[u]) {
+                continue;
+            }
+            if (u != city) {
+                if (count == order.length) {
+                    order = Arrays.copyOf(order, 2 * count);
+                }
+                order[count++] = u;
+            }
+            for (int e = graph.getFirstRoad(u); e < graph.getFirstRoad(u + 1); e++) {
+                int to = graph.getTarget(e);
+                long d = (long) distance[u] + graph.getLength(e);
+                if (d <= radius && d < distance[to]) {
+                    if (distance[to] == Integer.MAX_VALUE) {
+                        touched[reached++] = to;
+                    }
+                    distance[to] = (int) d;
+                    queue.add(new long[] {d, to});
+                }
+            }
+        }
+        cities[city] = Arrays.copyOf(order, count);
+        distances[city] = new int[count];
+        for (int i = 0; i < count; i++) {
+            distances[city][i] = distance[order[i]];
+        }
+        for (int i = 0; i < reached; i++) {
+            distance[touched[i]] = Integer.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures how the ParallelMapLoader scales with the number of threads.
+ * A synthetic map (see LoaderBenchmark) is written to a temporary file, and loaded by Game.fromFile and by the
+ * ParallelMapLoader on 1, 2, 4 and 8 threads (the best of a few loads is printed). Every parallel load is checked
+ * to give the same RoadGraph as the sequential one. The speedup is limited by the replay of the chunks, which
+ * resolves the names on one thread, and by the number of processors, which is printed too.
+ * Run it with a large fixed heap (e.g. -Xms4g -Xmx4g for the default million cities), or the collections of a
+ * growing heap take more time than the loads.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class ParallelLoaderBenchmark {
+    private static final int COUNTRIES = 1000;
+
+    /**
+     * Runs the benchmark.
+     * @param args [number of cities] [number of loads per thread count]
+     */
+    public static void main(String[] args) throws IOException {
+        int cities = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Settings settings = new Settings();
+        Path file = Files.createTempFile("map", ".dat");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                LoaderBenchmark.syntheticMap(COUNTRIES, cities, 0, line -> {
+                    try {
+                        out.write(line);
+                        out.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            System.out.println(cities + " cities, " + Files.size(file) / (1 << 20) + " MB, "
+                    + Runtime.getRuntime().availableProcessors() + " processors");
+
+            double sequential = Double.MAX_VALUE;
+            Game reference = null;
+            for (int r = 0; r < repetitions; r++) {
+                reference = null; //Let the previous game be collected first
+                long start = System.nanoTime();
+                reference = Game.fromFile(file.toString());
+                sequential = Math.min(sequential, (System.nanoTime() - start) / 1e6);
+            }
+            System.out.println("threads\tms\tspeedup");
+            System.out.println("fromFile\t" + String.format("%.0f", sequential));
+
+            //Warm up the JIT compiler
+            new ParallelMapLoader(2).load(file, settings);
+
+            double single = 0;
+            for (int threads = 1; threads <= 8; threads *= 2) {
+                ParallelMapLoader loader = new ParallelMapLoader(threads);
+                double best = Double.MAX_VALUE;
+                for (int r = 0; r < repetitions; r++) {
+                    long start = System.nanoTime();
+                    Game game = loader.load(file, settings);
+                    best = Math.min(best, (System.nanoTime() - start) / 1e6);
+                    check(reference.getGraph(), game.getGraph());
+                }
+                if (threads == 1) {
+                    single = best;
+                }
+                System.out.println(threads + "\t" + String.format("%.0f", best) + "\t"
+                        + String.format("%.2f", single / best));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Throws an AssertionError if two graphs differ.
+     */
+    private static void check(RoadGraph expected, RoadGraph actual) {
+        boolean same = expected.getCityCount() == actual.getCityCount()
+                && expected.getRoadCount() == actual.getRoadCount();
+        for (int e = 0; same && e < expected.getRoadCount(); e++) {
+            same = expected.getTarget(e) == actual.getTarget(e) && expected.getLength(e) == actual.getLength(e);
+        }
+        if (!same) {
+            throw new AssertionError("The parallel loader built another map");
+        }
+    }
+}
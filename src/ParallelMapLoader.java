@@ -0,0 +1,291 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a map file (see Game.fromFile) on several threads.
+ * The file is split into chunks which end at the end of a line, and every chunk is tokenized by its own MapReader
+ * on a thread of a pool, into a buffer of commands with their names decoded and their numbers parsed. The buffers
+ * are then replayed into a MapBuilder on the calling thread, in the order of the file, so every name is resolved
+ * exactly as by the sequential loader (countries before their cities, cities before their roads), and the Game is
+ * the same whatever the number of threads. A chunk is replayed as soon as it and the chunks before it are parsed, and
+ * the next chunk is then submitted, so only a few chunks per thread are in memory at a time (see WINDOW). The roads
+ * are finally added to the networks of their countries in parallel (see MapBuilder.build).
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class ParallelMapLoader {
+    /** Smallest chunk, so small files are not split into more chunks than is worth it. */
+    public static final int MIN_CHUNK = 1 << 20;
+    /** Largest chunk (unless the smallest chunk is set larger), which bounds the memory of the chunks in flight. */
+    public static final int MAX_CHUNK = 4 << 20;
+    /** Number of chunks per thread which are parsed or wait to be replayed at a time. */
+    public static final int WINDOW = 2;
+
+    //The commands of a buffer
+    private static final int GAME = 0, COUNTRY = 1, CITY = 2, ROAD = 3, POSITION = 4, UNKNOWN = 5;
+
+    private final int threads;
+    private int chunkSize = MIN_CHUNK;
+
+    /**
+     * Creates a loader which uses a given number of threads.
+     * @param threads the number of threads
+     */
+    public ParallelMapLoader(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Changes the smallest size of a chunk (the file is split into about 4 chunks per thread, if they are larger).
+     * @param bytes the size in bytes
+     */
+    public void setChunkSize(int bytes) {
+        this.chunkSize = bytes;
+    }
+
+    /**
+     * Loads a map file. Players are added and the Game is reset, as by Game.fromFile.
+     * @param path the path of the map file
+     * @param settings the Settings to be used by the Game
+     * @return the Game (or null if the file does not contain a Game command)
+     * @throws IOException if the file cannot be read or is not valid UTF-8
+     * @throws NumberFormatException if a number of the file is not an int
+     */
+    public Game load(Path path, Settings settings) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(path)) {
+            long[] bounds = split(channel, Math.max(chunkSize, Math.min(MAX_CHUNK, channel.size() / (4L * threads))));
+            //At most WINDOW chunks per thread are parsed or wait to be replayed at a time
+            Deque<Future<Chunk>> futures = new ArrayDeque<>();
+            int next = 0;
+            MapBuilder map = null;
+            while (next + 1 < bounds.length || !futures.isEmpty()) {
+                while (next + 1 < bounds.length && futures.size() < WINDOW * threads) {
+                    long start = bounds[next];
+                    long end = bounds[++next];
+                    futures.add(pool.submit(() -> new Chunk(channel, start, end)));
+                }
+                map = futures.remove().get().replay(map, settings);
+            }
+            if (map == null) {
+                return null;
+            }
+            Game game = map.build(pool);
+            game.addDefaultPlayers();
+            game.reset();
+            return game;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + path);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits a file into chunks which start at the start of a line.
+     * @param channel the file
+     * @param size the size of a chunk (the chunks are a little longer, up to the end of a line)
+     * @return the start of every chunk and the size of the file
+     */
+    static long[] split(FileChannel channel, long size) throws IOException {
+        long fileSize = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long start = size;
+        while (start < fileSize) {
+            long end = lineEnd(channel, buffer, start);
+            if (end >= fileSize) {
+                break;
+            }
+            bounds.add(end);
+            start = end + size;
+        }
+        bounds.add(fileSize);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Finds the start of the line after a position: the byte after the first \n or \r at or after it
+     * (or after \r\n), or the size of the file if there is no such line.
+     */
+    private static long lineEnd(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        boolean carriageReturn = false;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (carriageReturn) {
+                    return position + (b == '\n' ? i + 1 : i);
+                }
+                if (b == '\n') {
+                    return position + i + 1;
+                }
+                carriageReturn = b == '\r';
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Reads a range of a file (the file is not closed by close, and can be read by other threads at the same time).
+     */
+    private static class Range implements ReadableByteChannel {
+        private final FileChannel file;
+        private long position;
+        private final long end;
+
+        Range(FileChannel file, long start, long end) {
+            this.file = file;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            ByteBuffer slice = dst.slice();
+            slice.limit((int) Math.min(slice.limit(), end - position));
+            int read = file.read(slice, position);
+            if (read < 0) {
+                return -1;
+            }
+            dst.position(dst.position() + read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * The parsed commands of a chunk: every command is its kind and its arguments in 'ops', where the names are
+     * indices of 'names'. If the chunk has an error, the commands before it are kept and the error is thrown when
+     * the chunk is replayed (so the error of the first line is thrown, as by the sequential loader).
+     */
+    private static class Chunk {
+        private int[] ops = new int[1024];
+        private int size;
+        private final List<String> names = new ArrayList<>();
+        private Exception error;
+
+        /**
+         * Parses a chunk of a file.
+         */
+        Chunk(FileChannel channel, long start, long end) {
+            try (MapReader reader = new MapReader(new Range(channel, start, end))) {
+                while (reader.next()) {
+                    if (reader.is(0, "background")) {
+                        continue;
+                    } else if (reader.is(0, "game")) {
+                        add(GAME, reader.number(1));
+                    } else if (reader.is(0, "country")) {
+                        add(COUNTRY, name(reader.text(1)), reader.size() > 2 && reader.is(2, "mafia") ? 1 : 0);
+                    } else if (reader.is(0, "city")) {
+                        int type = MapImage.CITY;
+                        if (reader.size() > 3 && reader.is(3, "border")) {
+                            type = MapImage.BORDER;
+                        } else if (reader.size() > 3 && reader.is(3, "capital")) {
+                            type = MapImage.CAPITAL;
+                        }
+                        add(CITY, name(reader.text(1)), reader.number(2), type);
+                    } else if (reader.is(0, "road")) {
+                        add(ROAD, name(reader.text(1)), name(reader.text(2)), reader.number(3));
+                    } else if (reader.is(0, "position")) {
+                        add(POSITION, name(reader.text(1)), reader.number(2), reader.number(3));
+                    } else if (!reader.isComment(0)) {
+                        add(UNKNOWN, name(reader.text(0)));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                error = e;
+            }
+        }
+
+        private int name(String name) {
+            names.add(name);
+            return names.size() - 1;
+        }
+
+        private void add(int... command) {
+            if (size + command.length > ops.length) {
+                ops = Arrays.copyOf(ops, 2 * ops.length);
+            }
+            System.arraycopy(command, 0, ops, size, command.length);
+            size += command.length;
+        }
+
+        /**
+         * Replays the commands into a MapBuilder.
+         * @param map the builder of the chunks before this one (or null if no Game command has been read)
+         * @param settings the Settings to be used by the Game
+         * @return the builder after this chunk
+         */
+        MapBuilder replay(MapBuilder map, Settings settings) throws IOException {
+            int i = 0;
+            while (i < size) {
+                switch (ops[i]) {
+                    case GAME:
+                        map = new MapBuilder(ops[i + 1], settings);
+                        i += 2;
+                        break;
+                    case COUNTRY:
+                        map.addCountry(names.get(ops[i + 1]), ops[i + 2] != 0);
+                        i += 3;
+                        break;
+                    case CITY:
+                        map.addCity(names.get(ops[i + 1]), ops[i + 2], ops[i + 3]);
+                        i += 4;
+                        break;
+                    case ROAD:
+                        map.addRoads(names.get(ops[i + 1]), names.get(ops[i + 2]), ops[i + 3]);
+                        i += 4;
+                        break;
+                    case POSITION:
+                        map.putPosition(names.get(ops[i + 1]), ops[i + 2], ops[i + 3]);
+                        i += 4;
+                        break;
+                    default:
+                        System.out.println("unknown: " + names.get(ops[i + 1]));
+                        i += 2;
+                        break;
+                }
+            }
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error != null) {
+                throw (RuntimeException) error;
+            }
+            return map;
+        }
+    }
+}
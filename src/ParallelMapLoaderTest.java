@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the parallel loader builds the same games as the sequential loader
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class ParallelMapLoaderTest {
+
+    /**
+     * Loads a file on a number of threads, in chunks of a given size
+     */
+    private Game load(Path path, int threads, int chunkSize) throws IOException {
+        ParallelMapLoader loader = new ParallelMapLoader(threads);
+        loader.setChunkSize(chunkSize);
+        return loader.load(path, new Settings());
+    }
+
+    /**
+     * Checks that two games have the same map and the same players
+     */
+    private void assertSameGame(Game expected, Game actual) {
+        RoadGraph graph = expected.getGraph();
+        RoadGraph other = actual.getGraph();
+        assertEquals(expected.getMapSeed(), actual.getMapSeed());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getCountries(), actual.getCountries());
+        for (int c = 0; c < expected.getCountries().size(); c++) {
+            assertEquals(expected.getCountries().get(c).getClass(), actual.getCountries().get(c).getClass());
+        }
+        assertEquals(graph.getCityCount(), other.getCityCount());
+        assertEquals(graph.getRoadCount(), other.getRoadCount());
+        for (int id = 0; id < graph.getCityCount(); id++) {
+            City city = other.getCity(id);
+            assertEquals(graph.getCity(id).getName(), city.getName());
+            assertEquals(graph.getCity(id).getClass(), city.getClass());
+            assertEquals(graph.getCity(id).getInitialValue(), city.getInitialValue());
+            assertEquals(graph.getFirstRoad(id), other.getFirstRoad(id));
+            assertEquals(expected.getPosition(graph.getCity(id)), actual.getPosition(city));
+        }
+        for (int e = 0; e < graph.getRoadCount(); e++) {
+            assertEquals(graph.getTarget(e), other.getTarget(e));
+            assertEquals(graph.getLength(e), other.getLength(e));
+        }
+        for (int i = 0; i < expected.getPlayers().size(); i++) {
+            assertEquals(expected.getPlayers().get(i).getPosition(), actual.getPlayers().get(i).getPosition());
+        }
+    }
+
+    @Test
+    public void network() throws IOException {
+        Game expected = Game.fromFile("network.dat");
+        for (int threads = 1; threads <= 4; threads++) {
+            assertSameGame(expected, load(Paths.get("network.dat"), threads, 100));
+            assertSameGame(expected, load(Paths.get("network.dat"), threads, ParallelMapLoader.MIN_CHUNK));
+        }
+    }
+
+    @Test
+    public void chunks() throws IOException {
+        //Every chunk starts at the start of a line, also with \r\n and \r line ends
+        List<String> lines = LoaderBenchmark.syntheticMap(7, 300, 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            text.append(lines.get(i)).append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\r" : "\n");
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = Files.createTempFile("map", ".dat");
+        try {
+            Files.write(file, bytes);
+            try (FileChannel channel = FileChannel.open(file)) {
+                for (int size = 1; size < 200; size += 7) {
+                    long[] bounds = ParallelMapLoader.split(channel, size);
+                    assertEquals(0, bounds[0]);
+                    assertEquals(bytes.length, bounds[bounds.length - 1]);
+                    for (int i = 1; i + 1 < bounds.length; i++) {
+                        assertTrue(bounds[i] > bounds[i - 1]);
+                        byte before = bytes[(int) bounds[i] - 1];
+                        assertTrue(before == '\n' || before == '\r' && bytes[(int) bounds[i]] != '\n');
+                    }
+                }
+            }
+            Game expected = Game.fromLines(lines, new Settings());
+            for (int size = 1; size < 2000; size *= 3) {
+                assertSameGame(expected, load(file, 3, size));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void errors() throws IOException {
+        //The error of the first bad line is thrown, wherever the chunks end
+        Path file = Files.createTempFile("map", ".dat");
+        try {
+            Files.write(file, List.of("Game 0", "Country A", "City a 1x", "City b 2", "Road a b 2x"));
+            NumberFormatException e = assertThrows(NumberFormatException.class, () -> load(file, 2, 1));
+            assertTrue(e.getMessage().contains("1x"));
+            Files.write(file, List.of("// No Game command", "Background map.png"));
+            assertNull(load(file, 2, 1));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
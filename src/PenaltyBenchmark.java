@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the cost of evaluating a city of a path, with Math.pow (PlayerPath.penalty) and with the penalty tables
+ * (PlayerPath.discount), on random visits and path lengths like those of a search of 200 steps, and checks that
+ * both give the same values. Then the BacktrackingPlanner decides from every city of 'network.dat', and the time
+ * per searched node is printed (every node evaluates one city, or two at the end of a path).
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class PenaltyBenchmark {
+    private static final int EVALUATIONS = 1 << 20;
+
+    /**
+     * Runs the benchmark.
+     * @param args [number of repetitions]
+     */
+    public static void main(String[] args) {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int depth = 200;
+        PlayerPath.reserve(depth);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] values = new int[EVALUATIONS];
+        int[] visits = new int[EVALUATIONS];
+        int[] edges = new int[EVALUATIONS];
+        for (int i = 0; i < EVALUATIONS; i++) {
+            values[i] = random.nextInt(300);
+            visits[i] = 1 + random.nextInt(4);
+            edges[i] = random.nextInt(depth / 4);
+        }
+
+        System.out.println("evaluation\tns/city");
+        //Run everything twice, so the JIT compiler has warmed up the second time
+        for (int round = 0; round < 2; round++) {
+            double pow = 0;
+            double table = 0;
+            long powTime = 0;
+            long tableTime = 0;
+            for (int r = 0; r < repetitions; r++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < EVALUATIONS; i++) {
+                    pow += values[i] / PlayerPath.penalty(visits[i], edges[i]);
+                }
+                powTime += System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < EVALUATIONS; i++) {
+                    table += PlayerPath.discount(values[i], visits[i], edges[i]);
+                }
+                tableTime += System.nanoTime() - start;
+            }
+            if (pow != table) {
+                throw new AssertionError("The tables give other values than Math.pow");
+            }
+            double evaluations = (double) EVALUATIONS * repetitions;
+            System.out.println("Math.pow\t" + String.format("%.2f", powTime / evaluations));
+            System.out.println("tables\t\t" + String.format("%.2f", tableTime / evaluations));
+        }
+
+        Game game = Game.fromFile("network.dat");
+        List<City> cities = new ArrayList<>();
+        for (Country country : game.getCountries()) {
+            cities.addAll(country.getCities());
+        }
+        SmartPlayer player = new SmartPlayer(game.getRandomStartingPosition());
+        BacktrackingPlanner planner = new BacktrackingPlanner(depth);
+        for (int round = 0; round < 2; round++) {
+            long time = 0;
+            long nodes = 0;
+            for (int r = 0; r < repetitions; r++) {
+                for (City city : cities) {
+                    long start = System.nanoTime();
+                    planner.nextCity(player, city, depth);
+                    time += System.nanoTime() - start;
+                    nodes += planner.getNodes();
+                }
+            }
+            System.out.println("BacktrackingPlanner (" + depth + " steps)\t"
+                    + String.format("%.2f", time / (double) nodes) + " ns/node");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Plays a batch of seeds on the shipped map ('network.dat') with the default players, first without and then with
+ * the plan cache of the SmartPlayer, and reports the games per second, the hits and misses of the cache per game,
+ * and the average money of the SmartPlayer (which plays differently with the cache).
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class PlanCacheBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args [number of games] [depth of the search]
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        Game map = Game.fromLines(Files.readAllLines(Paths.get("network.dat")), new Settings());
+        System.out.println("planner\tcache\tgames/s\thits/game\tmisses/game\tsmart money");
+        //Run everything twice, so the JIT compiler has warmed up the second time
+        for (int round = 0; round < 2; round++) {
+            for (boolean backtracking : new boolean[] {false, true}) {
+                play(map, games, depth, backtracking, false);
+                play(map, games, depth, backtracking, true);
+            }
+        }
+    }
+
+    /**
+     * Plays the games and prints the results.
+     * @param map the game whose map is shared
+     * @param games the number of games
+     * @param depth the depth of the search
+     * @param backtracking whether the SmartPlayer uses the BacktrackingPlanner (or the DepthFirstPlanner)
+     * @param cache whether the plan cache is used
+     */
+    private static void play(Game map, int games, int depth, boolean backtracking, boolean cache) {
+        long start = System.nanoTime();
+        long hits = 0, misses = 0, money = 0;
+        for (int seed = 0; seed < games; seed++) {
+            Game game = new Game(map, seed, new Settings(map.getSettings()));
+            game.addDefaultPlayers();
+            game.getRandom().setSeed(seed);
+            game.reset();
+            SmartPlayer smart = null;
+            for (Player p : game.getPlayers()) {
+                if (p instanceof SmartPlayer) {
+                    smart = (SmartPlayer) p;
+                }
+            }
+            smart.setPlanner(backtracking ? new BacktrackingPlanner(depth) : new DepthFirstPlanner(depth));
+            smart.setPlanCache(cache);
+            while (game.ongoing()) {
+                game.advance();
+            }
+            hits += smart.getCacheHits();
+            misses += smart.getCacheMisses();
+            money += smart.getMoney();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println((backtracking ? "Backtracking" : "DepthFirst") + "\t" + (cache ? "on" : "off") + "\t"
+                + String.format("%.1f", games / seconds) + "\t" + String.format("%.1f", hits / (double) games)
+                + "\t\t" + String.format("%.1f", misses / (double) games) + "\t\t" + money / games);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * A planner determines which city a SmartPlayer should travel to next.
+ * Different planners trade search time for quality (or simply search the same paths faster).
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public abstract class Planner {
+    private int maxDepth;
+
+    /**
+     * Creates a planner which looks at most a given number of steps forward
+     * (and makes the penalty tables of PlayerPath large enough for that depth).
+     * @param maxDepth the maximum number of steps to look forward
+     */
+    public Planner(int maxDepth) {
+        this.maxDepth = maxDepth;
+        PlayerPath.reserve(maxDepth);
+    }
+
+    /**
+     * Returns the maximum number of steps this planner looks forward.
+     * @return the maximum number of steps to look forward
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Changes the maximum number of steps this planner looks forward.
+     * @param maxDepth the new maximum number of steps to look forward
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        PlayerPath.reserve(maxDepth);
+    }
+
+    /**
+     * Creates a new planner of the same kind and depth (which does not share any search state with this planner).
+     * @return the new planner
+     */
+    public abstract Planner copy();
+
+    /**
+     * Determines the next city to travel to.
+     * @param player the player who is searching
+     * @param c the current city
+     * @param n the number of steps left of the game (is capped at 'maxDepth')
+     * @return the next city of the best path, or c if there is no path
+     */
+    public City nextCity(SmartPlayer player, City c, int n) {
+        PlayerPath best = bestPath(player, c, Math.min(maxDepth, n));
+        if (best.isEmpty()) {
+            return c;
+        }
+        return best.getRoad().getTo();
+    }
+
+    /**
+     * Determines the best path from a city.
+     * @param player the player who is searching
+     * @param c the current city
+     * @param n the number of steps to look forward
+     * @return the best path (empty if no road can be travelled in n steps)
+     */
+    public abstract PlayerPath bestPath(SmartPlayer player, City c, int n);
+}
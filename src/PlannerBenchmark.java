@@ -0,0 +1,198 @@
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the decision latency of the planners of SmartPlayer on 'network.dat'.
+ * Every planner makes a decision from every city at the depths 20, 50, 100 and 200,
+ * and the first roads are compared with those of the depth-first search.
+ * The bytes allocated per decision are measured with the ThreadMXBean of the JVM.
+ * The BacktrackingPlanner is also measured with pruning and with a transposition table, which is either kept
+ * between the decisions (warm: the repetitions find the states of the earlier searches, as the values are the same)
+ * or cleared before every decision (cold).
+ * Then the DeepeningPlanner decides from every city with a number of time budgets (at most 200 steps),
+ * and its latency, reached depth and first roads (compared with the depth-first search of 200 steps) are printed.
+ * Finally the BacktrackingPlanner decides from every city at every depth with the values of the cities and with
+ * the expected payoffs of the expectimax evaluation, to measure the cost of the evaluation.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class PlannerBenchmark {
+    private static final int[] DEPTHS = {20, 50, 100, 200};
+    private static final double[] BUDGETS = {0.5, 1, 2, 5, 20};   // Time budgets in milliseconds
+
+    /**
+     * Runs the benchmark.
+     * @param args [number of repetitions]
+     */
+    public static void main(String[] args) {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Game game = Game.fromFile("network.dat");
+        List<City> cities = new ArrayList<>();
+        for (Country country : game.getCountries()) {
+            cities.addAll(country.getCities());
+        }
+        SmartPlayer player = new SmartPlayer(game.getRandomStartingPosition());
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        System.out.println("depth\tplanner\t\t\t\tms/decision\tbytes/decision\tsame road\tnodes/decision");
+        for (int depth : DEPTHS) {
+            Planner reference = new DepthFirstPlanner(depth);
+            for (Planner planner : planners(depth)) {
+                int same = 0;
+                for (City city : cities) {
+                    if (sameRoad(planner.bestPath(player, city, depth), reference.bestPath(player, city, depth))) {
+                        same++;
+                    }
+                }
+                long time = 0;
+                long bytes = 0;
+                long nodes = 0;
+                for (int i = 0; i < repetitions; i++) {
+                    for (City city : cities) {
+                        if (planner instanceof ColdPlanner) {
+                            ((BacktrackingPlanner) planner).getTranspositionTable().clear();
+                        }
+                        long allocated = threads.getThreadAllocatedBytes(thread);
+                        long start = System.nanoTime();
+                        planner.nextCity(player, city, depth);
+                        time += System.nanoTime() - start;
+                        bytes += threads.getThreadAllocatedBytes(thread) - allocated;
+                        if (planner instanceof BacktrackingPlanner) {
+                            nodes += ((BacktrackingPlanner) planner).getNodes();
+                        }
+                    }
+                }
+                int decisions = repetitions * cities.size();
+                System.out.println(depth + "\t" + String.format("%-30s", name(planner))
+                        + String.format("%.4f", time / 1e6 / decisions) + "\t\t" + bytes / decisions
+                        + "\t\t" + same + "/" + cities.size() + "\t\t" + (nodes == 0 ? "-" : nodes / decisions));
+            }
+        }
+
+        int depth = DEPTHS[DEPTHS.length - 1];
+        Planner reference = new DepthFirstPlanner(depth);
+        List<PlayerPath> expected = new ArrayList<>();
+        for (City city : cities) {
+            expected.add(reference.bestPath(player, city, depth));
+        }
+        System.out.println();
+        System.out.println("budget (ms)	ms/decision	max ms	avg depth	min depth	same road");
+        for (double budget : BUDGETS) {
+            DeepeningPlanner planner = new DeepeningPlanner(depth, Duration.ofNanos((long) (budget * 1e6)));
+            int same = 0;
+            long time = 0;
+            long max = 0;
+            for (int i = 0; i < repetitions; i++) {
+                for (int c = 0; c < cities.size(); c++) {
+                    long start = System.nanoTime();
+                    City next = planner.nextCity(player, cities.get(c), depth);
+                    long t = System.nanoTime() - start;
+                    time += t;
+                    max = Math.max(max, t);
+                    PlayerPath path = expected.get(c);
+                    if (path.isEmpty() ? next == cities.get(c) : next == path.getRoad().getTo()) {
+                        same++;
+                    }
+                }
+            }
+            int decisions = repetitions * cities.size();
+            System.out.println(budget + "\t\t" + String.format("%.4f", time / 1e6 / decisions)
+                    + "\t" + String.format("%.2f", max / 1e6)
+                    + "\t" + String.format("%.1f", planner.getDepths().getAverage())
+                    + "\t\t" + planner.getDepths().getMin() + "\t\t" + same + "/" + decisions);
+        }
+
+        SmartPlayer expectimax = new SmartPlayer(player.getPosition());
+        expectimax.setExpectimax(true);
+        System.out.println();
+        System.out.println("depth\tvalues ms\texpectimax ms");
+        for (int d : DEPTHS) {
+            Planner planner = new BacktrackingPlanner(d);
+            System.out.println(d + "\t" + String.format("%.4f", latency(planner, player, cities, d, repetitions))
+                    + "\t\t" + String.format("%.4f", latency(planner, expectimax, cities, d, repetitions)));
+        }
+    }
+
+    /**
+     * Measures the average time of a decision from every city.
+     * @return the time per decision in milliseconds
+     */
+    private static double latency(Planner planner, SmartPlayer player, List<City> cities, int depth, int repetitions) {
+        long time = 0;
+        for (int i = 0; i < repetitions; i++) {
+            for (City city : cities) {
+                long start = System.nanoTime();
+                planner.nextCity(player, city, depth);
+                time += System.nanoTime() - start;
+            }
+        }
+        return time / 1e6 / (repetitions * cities.size());
+    }
+
+    /**
+     * Creates the planners to compare.
+     * @param depth the number of steps to look forward
+     * @return the planners
+     */
+    private static List<Planner> planners(int depth) {
+        List<Planner> planners = new ArrayList<>();
+        planners.add(new DepthFirstPlanner(depth));
+        planners.add(new MemoPlanner(depth));
+        planners.add(new BacktrackingPlanner(depth));
+        planners.add(new BacktrackingPlanner(depth, true));
+        BacktrackingPlanner table = new BacktrackingPlanner(depth);
+        table.setTranspositionTable(new TranspositionTable());
+        planners.add(table);
+        planners.add(new ColdPlanner(depth));
+        return planners;
+    }
+
+    /**
+     * Returns the name of a planner (with its options).
+     * @param planner the planner
+     * @return the name
+     */
+    private static String name(Planner planner) {
+        String name = planner instanceof ColdPlanner ? "BacktrackingPlanner" : planner.getClass().getSimpleName();
+        if (planner instanceof BacktrackingPlanner) {
+            BacktrackingPlanner backtracking = (BacktrackingPlanner) planner;
+            if (backtracking.isPruning()) {
+                name += " (pruned)";
+            }
+            TranspositionTable table = backtracking.getTranspositionTable();
+            if (table != null) {
+                name += String.format(" (%s table, %.0f%% hits, %d KB)", planner instanceof ColdPlanner ? "cold" : "warm",
+                        100 * table.getHitRate(), table.getMemory() >> 10);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Determines whether two paths start with the same road.
+     * @param a the first path
+     * @param b the second path
+     * @return true if both paths are empty or start with the same road
+     */
+    private static boolean sameRoad(PlayerPath a, PlayerPath b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return a.isEmpty() && b.isEmpty();
+        }
+        return a.getRoad().equals(b.getRoad());
+    }
+
+    /**
+     * A BacktrackingPlanner whose transposition table is cleared before every decision, which shows the
+     * transpositions within a search (in a game, the values change between most decisions).
+     */
+    private static class ColdPlanner extends BacktrackingPlanner {
+        ColdPlanner(int depth) {
+            super(depth);
+            setTranspositionTable(new TranspositionTable());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the planners of SmartPlayer choose the same roads as the depth-first search
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class PlannerTest {
+    private Game game;
+    private SmartPlayer player;
+    private List<City> cities;
+
+    @BeforeEach
+    public void setUp() {
+        game = Game.fromFile("network.dat");
+        player = new SmartPlayer(game.getRandomStartingPosition());
+        cities = new ArrayList<>();
+        for (Country country : game.getCountries()) {
+            cities.addAll(country.getCities());
+        }
+    }
+
+    /**
+     * Checks that a planner chooses the same first road as the depth-first search from every city
+     */
+    private void assertSameRoads(Planner planner, int depth) {
+        Planner reference = new DepthFirstPlanner(depth);
+        for (City city : cities) {
+            PlayerPath expected = reference.bestPath(player, city, depth);
+            PlayerPath actual = planner.bestPath(player, city, depth);
+            assertEquals(expected.isEmpty(), actual.isEmpty());
+            if (!expected.isEmpty()) {
+                assertEquals(expected.getRoad(), actual.getRoad());
+                assertEquals(expected.getValue(), actual.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void nextCity() {
+        City city = cities.get(0);
+        Planner planner = new DepthFirstPlanner(0);
+        //Nothing can be reached in 0 steps
+        assertEquals(city, planner.nextCity(player, city, 100));
+        planner.setMaxDepth(100);
+        assertNotEquals(city, planner.nextCity(player, city, 100));
+    }
+
+    @Test
+    public void penaltyTables() {
+        //The tables give exactly the same values as Math.pow, also beyond the reserved depth
+        PlayerPath.reserve(50);
+        for (int value : new int[] {0, 1, 7, 95, 250, 12345}) {
+            for (int visits = 1; visits <= 60; visits++) {
+                for (int edges = 0; edges <= 300; edges++) {
+                    assertEquals(value / PlayerPath.penalty(visits, edges), PlayerPath.discount(value, visits, edges));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void memoPlanner() {
+        for (int depth = 0; depth <= 120; depth += 10) {
+            assertSameRoads(new MemoPlanner(depth), depth);
+        }
+    }
+
+    @Test
+    public void backtrackingPlanner() {
+        Planner planner = new BacktrackingPlanner(0);
+        for (int depth = 0; depth <= 120; depth += 10) {
+            planner.setMaxDepth(depth);
+            assertSameRoads(planner, depth);
+        }
+    }
+
+    @Test
+    public void pruning() {
+        BacktrackingPlanner pruned = new BacktrackingPlanner(0, true);
+        BacktrackingPlanner full = new BacktrackingPlanner(0);
+        for (int depth = 0; depth <= 120; depth += 10) {
+            pruned.setMaxDepth(depth);
+            assertSameRoads(pruned, depth);
+        }
+        //With changed values (as in a game) the same roads are found, with fewer nodes
+        for (City city : cities) {
+            game.changeValue(city, -city.getValue() * (city.getId() % 3) / 3);
+        }
+        long prunedNodes = 0;
+        long fullNodes = 0;
+        for (City city : cities) {
+            assertEquals(full.bestPath(player, city, 150).getRoads(), pruned.bestPath(player, city, 150).getRoads());
+            prunedNodes += pruned.getNodes();
+            fullNodes += full.getNodes();
+        }
+        assertTrue(prunedNodes < fullNodes);
+    }
+
+    @Test
+    public void transpositionTable() {
+        for (long capacity : new long[] {8 << 10, 4 << 20}) {
+            BacktrackingPlanner planner = new BacktrackingPlanner(0, capacity < (1 << 20));
+            TranspositionTable table = new TranspositionTable(capacity, 2);
+            planner.setTranspositionTable(table);
+            for (int depth = 0; depth <= 120; depth += 10) {
+                planner.setMaxDepth(depth);
+                assertSameRoads(planner, depth);
+            }
+            assertTrue(table.getHits() > 0);
+            //The slots and the random keys fit in the memory cap
+            assertTrue(table.getMemory() <= capacity);
+        }
+        //The entries of a search are not found when the values have changed
+        BacktrackingPlanner planner = new BacktrackingPlanner(100);
+        TranspositionTable table = new TranspositionTable();
+        planner.setTranspositionTable(table);
+        City city = cities.get(0);
+        planner.nextCity(player, city, 100);
+        long hits = table.getHits();
+        for (City c : cities) {
+            game.changeValue(c, -c.getValue() / 2);
+        }
+        assertEquals(new BacktrackingPlanner(100).nextCity(player, city, 100), planner.nextCity(player, city, 100));
+        assertTrue(table.getHits() - hits < table.getProbes() / 2);
+    }
+
+    @Test
+    public void expectimax() throws IOException {
+        //With expected payoffs all planners still find the same paths
+        player.setExpectimax(true);
+        for (City city : cities) {
+            game.changeValue(city, -city.getValue() * (city.getId() % 3) / 3);
+        }
+        BacktrackingPlanner planner = new BacktrackingPlanner(0, true);
+        planner.setTranspositionTable(new TranspositionTable());
+        for (int depth = 0; depth <= 90; depth += 30) {
+            planner.setMaxDepth(depth);
+            assertSameRoads(planner, depth);
+            assertSameRoads(new MemoPlanner(depth), depth);
+        }
+        //Without mafia, tolls and capitals half the value of a city is expected as bonus
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get("network.dat"))) {
+            lines.add(line.replaceAll("\\s+(mafia|border|capital)\\s*$", ""));
+        }
+        Game plain = Game.fromLines(lines, new Settings());
+        SmartPlayer player = new SmartPlayer(plain.getRandomStartingPosition());
+        player.setExpectimax(true);
+        City city = plain.getCountries().get(0).getCities().iterator().next();
+        PlayerPath path = new BacktrackingPlanner(100).bestPath(player, city, 100);
+        player.setExpectimax(false);
+        assertEquals(new BacktrackingPlanner(100).bestPath(player, city, 100).getValue() / 2, path.getValue(), 1e-9);
+    }
+
+    @Test
+    public void deepeningPlanner() {
+        //With enough time every search is completed
+        for (int depth = 0; depth <= 120; depth += 15) {
+            DeepeningPlanner planner = new DeepeningPlanner(depth, Duration.ofSeconds(60));
+            assertSameRoads(planner, depth);
+            assertEquals(depth, planner.getLastDepth());
+        }
+        //Without time only the first search is done, which still finds a road
+        DeepeningPlanner planner = new DeepeningPlanner(200, Duration.ZERO);
+        for (City city : cities) {
+            City next = planner.nextCity(player, city, 200);
+            assertEquals(DeepeningPlanner.STEP, planner.getLastDepth());
+            assertTrue(next == city || game.getGraph().findRoad(city.getId(), next.getId()) >= 0);
+        }
+        assertEquals(cities.size(), planner.getDepths().getCount());
+    }
+
+    @Test
+    public void planCache() {
+        Game game = new Game(this.game, 2, new Settings(this.game.getSettings()));
+        game.addDefaultPlayers();
+        game.getRandom().setSeed(2);
+        game.reset();
+        SmartPlayer smart = null;
+        for (Player p : game.getPlayers()) {
+            if (p instanceof SmartPlayer) {
+                smart = (SmartPlayer) p;
+            }
+        }
+        smart.setPlanner(new BacktrackingPlanner(200));
+        smart.setPlanCache(true);
+        //The first decision searches, and chooses the same road as without the cache
+        City start = smart.getPosition().getTo();
+        City expected = new BacktrackingPlanner(200).nextCity(smart, start, game.getStepsLeft());
+        smart.decide();
+        assertEquals(1, smart.getCacheMisses());
+        assertEquals(expected, smart.getPosition().getTo());
+        while (game.ongoing()) {
+            game.advance();
+        }
+        assertTrue(smart.getCacheHits() > 0);
+        assertTrue(smart.getCacheMisses() > 1);
+    }
+}
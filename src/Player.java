@@ -1,15 +1,18 @@
 import java.awt.Color;
 import java.util.HashMap;
 import java.util.Set;
+import java.util.random.RandomGenerator;
 /**
  * Models a Player which is controlled by the user via the GUI.
  * @author Nikolaj Ignatieff Schwartzbach. 
  * @version August 2019.
  */
-public abstract class Player implements Comparable<Player> {
+public abstract class Player implements Comparable<Player>, Cloneable {
 
     private Position pos;             // Position of this Player
     private int money;                // Amount of money this Player has collected
+    private Game game;                // Game this Player takes part in (or 'null' if it has not been reset by a Game)
+    private RandomGenerator random;   // Random stream of this Player (or 'null' if it uses the Random of its Game)
 
     /**
      * Creates a new Player object with the specified position and a specified amount of money.
@@ -37,15 +40,53 @@ public abstract class Player implements Comparable<Player> {
     }
 
     /**
-     * Advances this Player one step.
+     * Advances this Player one step (by moving it and letting it decide where to go, if it is in a city).
+     * @return  true if and only if this Player is in a city after the step.
      */
     public boolean step() {
+        if(move()) {
+            decide();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves this Player one step along its road, and collects the bonus of the city if it arrives.
+     * @return  true if and only if this Player is in a city (and must decide where to go).
+     */
+    public boolean move() {
         if(pos.move() && pos.hasArrived()) {
-            money += pos.getTo().arrive();
+            money += pos.getTo().arrive(getGame());
         }
         return pos.hasArrived();
     }
 
+    /**
+     * Decides where this Player goes next (is called in every step in which this Player is in a city).
+     * Does nothing by default, so the Player stays in the city.
+     */
+    public void decide() {
+    }
+
+    /**
+     * Determines whether decide() only reads the Game and changes nothing but the position of this Player.
+     * Such players can decide at the same time as other players (see Game.setExecutor).
+     * @return  true if decide() can run in parallel with the decisions of other players.
+     */
+    public boolean decidesInParallel() {
+        return false;
+    }
+
+    /**
+     * Gets the number of upcoming steps in which this Player only moves along its road.
+     * During these steps the Player neither arrives nor chooses a new road, so they can be skipped.
+     * @return  The number of steps before this Player arrives (or 0 if it acts in the next step).
+     */
+    public int getIdleSteps() {
+        return Math.max(0, pos.getDistance() - 1);
+    }
+
     /**
      * Gets the amount of money this Player has collected.
      * @return  The money collected by this Player (in €).
@@ -68,10 +109,72 @@ public abstract class Player implements Comparable<Player> {
      * @param newPos   Position to attempt to move this Player to.
      */
     public void setPosition(Position newPos) {
-        if(pos.hasArrived() || getCountry().getGame().getStepsLeft() == getCountry().getGame().getTotalSteps())
+        if(pos.hasArrived() || getGame().getStepsLeft() == getGame().getTotalSteps())
             pos = newPos;
     }
 
+    /**
+     * Creates a copy of this Player with a copy of its position (e.g. for a forked Game).
+     * Subclasses with more mutable state copy that state as well.
+     * @return  The copy.
+     */
+    public Player copy() {
+        try {
+            Player p = (Player) clone();
+            p.pos = new Position(pos.getFrom(), pos.getTo(), pos.getDistance(), pos.getTotal());
+            return p;
+        } catch(CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Puts this Player at a given position, whether or not it has arrived (is used when a Game is restored).
+     * @param newPos   The new position.
+     */
+    void restorePosition(Position newPos) {
+        pos = newPos;
+    }
+
+    /**
+     * Gets the Game this Player takes part in.
+     * Several games can share the same map, so this is not necessarily the Game of the Country of this Player.
+     * @return   The Game set by setGame (or the Game of the current Country, if no Game has been set).
+     */
+    public Game getGame() {
+        if(game == null) {
+            return getCountry().getGame();
+        }
+        return game;
+    }
+
+    /**
+     * Sets the Game this Player takes part in (is called when the Game is reset).
+     * @param game   The Game.
+     */
+    public void setGame(Game game) {
+        this.game = game;
+    }
+
+    /**
+     * Gets the random generator this Player draws its own choices from.
+     * @return   The random stream of this Player (or the Random of its Game, if it has no stream of its own).
+     */
+    public RandomGenerator getRandom() {
+        if(random == null) {
+            return getGame().getRandom();
+        }
+        return random;
+    }
+
+    /**
+     * Sets the random stream of this Player (is called when the Game is reset).
+     * @param random   The random stream (or 'null' to use the Random of the Game).
+     */
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
     /**
      * Gets the Country which the Player is coming from.
      * @return   Country this Player came from.
@@ -0,0 +1,218 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Stack;
+
+/**
+ * Models a possible path for the smart player.
+ * Is used by the searching algorithm for SmartPlayer to model the paths it can take.
+ * @author Nikolaj I. Schwartzbach
+ * @version August 2019
+ */
+class PlayerPath {
+
+    private Stack<Road> edges;              // Ordered list of roads to choose.
+    private int length;                     // The length of the path (in steps).
+    private double value;                   // The expected difference in player value after path.
+    static final double IMPULSIVENESS = 1.10; // Propensity to prefer shorter paths (i = 1.0 corresponds to no preference in length).
+    private SmartPlayer source;             // Reference to the player object.
+    private static volatile double[] visitScale = new double[0];   // 1 / 2^(visits-1) by number of visits.
+    private static volatile double[] edgeDivisor = new double[0];  // impulsiveness^edges by number of edges.
+
+    /**
+     * Initialize a new path with given player.
+     * @param source    Reference to the smart player.
+     */
+    public PlayerPath(SmartPlayer source) {
+        this.source = source;
+        edges = new Stack<Road>();
+        length = 0;
+        value = 0;
+    }
+
+    /**
+     * Initialize a copy of a given path (which can be extended without changing the original).
+     * @param p    The path to copy.
+     */
+    public PlayerPath(PlayerPath p) {
+        this.source = p.source;
+        edges = new Stack<Road>();
+        edges.addAll(p.edges);
+        length = p.length;
+        value = p.value;
+    }
+
+    public int compareTo(PlayerPath p) {
+        if(value > p.value) { return 1; }
+        if(value < p.value) { return -1; }
+        if(length < p.length) { return 1; }
+        if(length > p.length) { return -1; }
+        return getRoad().compareTo(p.edges.peek());
+    }
+
+    /**
+     * Return the first road in this path.
+     * @return The first road in this path.
+     */
+    public Road getRoad() {
+        return edges.peek();
+    }
+
+    /**
+     * Return the roads of this path in the order they are travelled.
+     * @return The roads of this path.
+     */
+    public List<Road> getRoads() {
+        List<Road> roads = new ArrayList<>(edges);
+        Collections.reverse(roads);
+        return roads;
+    }
+
+    /**
+     * Return the length of this path (in steps).
+     * @return The number of steps to walk this path.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Return the expected difference in player value after path.
+     * @return Expected difference in player value after path.
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Determines if this path is empty or not.
+     * @return True, if this path is empty; false otherwise.
+     */
+    public boolean isEmpty() {
+        return edges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if(edges.isEmpty()){ return "[]"; }
+        StringBuilder sb = new StringBuilder("[");
+        for(Road r : edges) {
+            sb.append(r + ", ");
+        }
+        String s = sb.toString();
+        return s.substring(0,s.length()-2)+"]";
+    }
+
+    /**
+     * Adds a new road to the path in question.
+     * @param r The road object to add.
+     * @param penalty The accumulated penalty (see valueFrom).
+     */
+    public void addRoad(Road r, int penalty) {
+        if(!edges.isEmpty()) {
+            Road top = getRoad();
+            if(!top.getFrom().equals(r.getTo())) {
+                throw new RuntimeException("Invalid road. You tried to add road to "+r.getTo()+", but the next city is "+top.getFrom());
+            }
+        }
+        else {
+            value += valueFrom(r, penalty);
+        }
+        edges.add(r);
+        length += r.getLength();
+        value += valueTo(r, penalty);
+    }
+
+    /**
+     * Computes the value of the current path after inserting the possible road 'r', being in position 'from'.
+     * longer paths are penalized by O(impulsiveness^length).
+     * 
+     * With the expectimax evaluation of the player the expected bonus is used instead of the value
+     * (see ExpectedPayoffs.stay).
+     * 
+     * @param r The possible road to add.
+     * @param penalty The length of the path in question; 
+     * @return The expected value of the new path in question.
+     */
+    public double valueFrom(Road r, int penalty) {
+        ExpectedPayoffs payoffs = source.getExpectedPayoffs();
+        if(payoffs != null) {
+            return discount(payoffs.stay(r.getFrom().getId(), penalty), 1, edges.size());
+        }
+        return discount(source.getGame().getValue(r.getFrom()), penalty, edges.size());
+    }
+
+    /**
+     * Computes the value of the current path after inserting the possible road 'r', being in position 'to'.
+     * longer paths are penalized by O(impulsiveness^length).
+     * 
+     * With the expectimax evaluation of the player the expected payoff of arriving by 'r' is used instead of the
+     * value, which takes the robberies of a MafiaCountry into account (see ExpectedPayoffs.arrival).
+     * 
+     * @param r The possible road to add.
+     * @param penalty The length of the path in question; 
+     * @return The expected value of the new path in question.
+     */
+    public double valueTo(Road r, int penalty) {
+        ExpectedPayoffs payoffs = source.getExpectedPayoffs();
+        if(payoffs != null) {
+            return discount(payoffs.arrival(r.getTo().getId(), penalty), 1, edges.size());
+        }
+        return discount(source.getGame().getValue(r.getTo()), penalty, edges.size());
+    }
+
+    /**
+     * Computes the divisor of a city value in a path.
+     * Repeated visits are penalized by 2^(visits-1) and longer paths by impulsiveness^edges.
+     * 
+     * @param penalty The number of visits of the city.
+     * @param edges The number of edges of the path.
+     * @return The divisor of the city value.
+     */
+    static double penalty(int penalty, int edges) {
+        return Math.pow(2,penalty-1) * Math.pow(IMPULSIVENESS, edges);
+    }
+
+    /**
+     * Divides a city value by its penalty (see penalty), using the tables of reserve instead of Math.pow.
+     * The value is multiplied by 1 / 2^(visits-1), which is exact, and divided by impulsiveness^edges,
+     * so the result is identical to value / penalty(visits, edges) (a reciprocal of impulsiveness^edges would
+     * round differently, and could change which of two almost equal paths is chosen).
+     * Is shared with planners which do not build PlayerPath objects, so their values are identical.
+     * 
+     * @param value The value of the city.
+     * @param visits The number of visits of the city.
+     * @param edges The number of edges of the path.
+     * @return The penalized value.
+     */
+    static double discount(double value, int visits, int edges) {
+        double[] scale = visitScale;
+        double[] divisor = edgeDivisor;
+        if(visits < scale.length && edges < divisor.length) {
+            return value * scale[visits] / divisor[edges];
+        }
+        return value / penalty(visits, edges);
+    }
+
+    /**
+     * Makes sure the penalty tables cover the paths of a search of a given depth (every road takes at least
+     * one step, so a path has at most 'depth' edges and a city at most 'depth' + 1 visits).
+     * The tables are only replaced by larger ones, so searches running at the same time can keep using them.
+     * 
+     * @param depth The number of steps of the search.
+     */
+    static synchronized void reserve(int depth) {
+        int size = depth + 2;
+        if(edgeDivisor.length >= size) {
+            return;
+        }
+        double[] scale = new double[size];
+        double[] divisor = new double[size];
+        for(int i = 0; i < size; i++) {
+            scale[i] = Math.scalb(1.0, 1 - i);
+            divisor[i] = Math.pow(IMPULSIVENESS, i);
+        }
+        visitScale = scale;
+        edgeDivisor = divisor;
+    }
+}
@@ -30,6 +30,21 @@ public class Position {
         this.total = distance;
     }
 
+    /**
+     * Creates a position part of the way along a road (e.g. when a saved game is restored).
+     *
+     * @param from: the city where the player is coming from
+     * @param to: the city where the player is going to
+     * @param distance: the remaining distance to the destination city
+     * @param total: the total distance between the two cities
+     */
+    public Position(City from, City to, int distance, int total) {
+        this.from = from;
+        this.to = to;
+        this.distance = distance;
+        this.total = total;
+    }
+
     /**
      * Returns a string representation of the position in the format "from -> to : distance/total".
      * @return a string representation of the position
@@ -83,6 +98,15 @@ public class Position {
         return false;
     }
 
+    /**
+     * Moves the player a number of steps closer to the destination city (but not past it).
+     * Has the same effect as calling move() the given number of times.
+     * @param steps the number of steps to move
+     */
+    public void move(int steps) {
+        distance = Math.max(0, distance - steps);
+    }
+
     /**
      * Turns the player around, so it is coming from the destination city and going to the starting city.
      */
@@ -121,4 +121,22 @@ public class PositionTest {
         assertTrue(pos2.hasArrived());
         assertTrue(pos3.hasArrived());
     }
-}
\ No newline at end of file
+
+    /**
+     * Test moving several steps at once
+     */
+    @Test
+    public void moveSteps() {
+        pos1.move(3);
+        assertEquals(1, pos1.getDistance());
+        assertEquals(4, pos1.getTotal());
+        assertFalse(pos1.hasArrived());
+        // Moving past the destination stops at the destination
+        pos1.move(5);
+        assertEquals(0, pos1.getDistance());
+        assertTrue(pos1.hasArrived());
+        // Moving 0 steps does nothing
+        pos2.move(0);
+        assertEquals(2, pos2.getDistance());
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/**
+ * Compares the throughput of java.util.Random (the single Random of a Game) with the RandomGenerator algorithms
+ * which can be used for the random streams of cities and players (see Game.setRandomAlgorithm).
+ * First the raw number of draws per second is measured, and then the number of complete games per second
+ * (on a shared map) with each kind of random numbers.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class RandomBenchmark {
+    private static final String[] ALGORITHMS = {"SplittableRandom", "L64X128MixRandom", "Xoroshiro128PlusPlus", "Xoshiro256PlusPlus"};
+    private static final int DRAWS = 50000000;
+
+    /**
+     * Runs the benchmark.
+     * @param args [number of games per algorithm]
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+
+        System.out.println("generator\tdraws/s (millions)");
+        //Run everything twice, so the JIT compiler has warmed up the second time
+        for (int round = 0; round < 2; round++) {
+            print("Random", draws(new Random(0)));
+            for (String algorithm : ALGORITHMS) {
+                print(algorithm, draws(RandomStreams.streams(algorithm, 0, 1)[0]));
+            }
+        }
+
+        Game map = Game.fromLines(Files.readAllLines(Paths.get("network.dat")), new Settings());
+        System.out.println();
+        System.out.println("random numbers\tgames/s\ttotal money");
+        play(map, null, games);
+        play(map, null, games);
+        for (String algorithm : ALGORITHMS) {
+            play(map, algorithm, games);
+        }
+    }
+
+    /**
+     * Measures the number of draws per second of a generator.
+     * @param random the generator
+     * @return the number of draws per second
+     */
+    private static double draws(RandomGenerator random) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            sum += random.nextInt(1 + (i & 255));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        //Use the sum, so the draws cannot be removed by the JIT compiler
+        if (sum == 42) {
+            System.out.println();
+        }
+        return DRAWS / seconds;
+    }
+
+    /**
+     * Plays a number of games and prints the games per second.
+     * @param map the game whose map is shared
+     * @param algorithm the algorithm of the random streams (or null to use the single Random)
+     * @param games the number of games
+     */
+    private static void play(Game map, String algorithm, int games) {
+        long start = System.nanoTime();
+        long total = 0;
+        for (int seed = 0; seed < games; seed++) {
+            Game game = new Game(map, seed, new Settings(map.getSettings()));
+            game.addDefaultPlayers();
+            game.setRandomAlgorithm(algorithm);
+            game.getRandom().setSeed(seed);
+            game.reset();
+            while (game.ongoing()) {
+                game.advance();
+            }
+            for (Player p : game.getPlayers()) {
+                total += p.getMoney();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println((algorithm == null ? "Random (single)" : algorithm) + "\t"
+                + String.format("%.1f", games / seconds) + "\t" + total);
+    }
+
+    private static void print(String name, double draws) {
+        System.out.println(name + "\t" + String.format("%.0f", draws / 1e6));
+    }
+}
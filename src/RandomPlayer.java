@@ -1,6 +1,4 @@
 import java.awt.Color;
-import java.util.List;
-import java.util.Set;
 /**
  * Models a player which randomly chooses the next city to travel to.
  * @author Nikolaj Ignatieff Schwartzbach. 
@@ -17,18 +15,22 @@ public class RandomPlayer extends Player {
     }
 
     @Override
-    public boolean step() {
-        if(super.step()) {
-            City city = getPosition().getTo();
-            Set<Road> roads = getCountry().getRoads(city);
-            roads.stream()
-                 .skip(getCountry().getGame().getRandom().nextInt(roads.size()))
-                 .limit(1)
-                 .map(r -> getCountry().readyToTravel(city,r.getTo()))
-                 .forEach(this::setPosition);
-            return true;
-        }
-        return false;
+    public void decide() {
+        City city = getPosition().getTo();
+        Game game = getGame();
+        RoadGraph graph = game.getGraph();
+        int first = graph.getFirstRoad(city.getId());
+        int roads = graph.getFirstRoad(city.getId() + 1) - first;
+        int e = first + getRandom().nextInt(roads);
+        setPosition(getCountry().readyToTravel(city, graph.getCity(graph.getTarget(e))));
+    }
+
+    /**
+     * A RandomPlayer can only decide in parallel if it draws from a stream of its own (see Game.setRandomAlgorithm).
+     */
+    @Override
+    public boolean decidesInParallel() {
+        return getRandom() != getGame().getRandom();
     }
 
     @Override
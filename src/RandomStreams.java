@@ -0,0 +1,96 @@
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.JumpableGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Independent random streams for the cities and players of a game, all derived from the seed of the game.
+ * The streams are made by a RandomGenerator algorithm (e.g. "L64X128MixRandom" or "Xoroshiro128PlusPlus").
+ * If the algorithm is splittable, every stream is split from a generator seeded with the seed; if it is jumpable,
+ * every stream is a jump ahead of the previous one; otherwise every stream gets its own seed mixed from the seed.
+ * The streams are made in a fixed order (first the cities by id, then the players), so they only depend on the seed,
+ * and a draw in one stream does not change any other stream.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class RandomStreams {
+    private String algorithm;               // Name of the RandomGenerator algorithm
+    private RandomGenerator[] cities;       // Stream of every city (by id)
+    private RandomGenerator[] players;      // Stream of every player (by index)
+
+    /**
+     * Creates the streams of a game.
+     * @param algorithm the name of the RandomGenerator algorithm
+     * @param seed the seed of the game
+     * @param cities the number of cities
+     * @param players the number of players
+     * @throws IllegalArgumentException if the algorithm does not exist
+     */
+    public RandomStreams(String algorithm, long seed, int cities, int players) {
+        this.algorithm = algorithm;
+        RandomGenerator[] streams = streams(algorithm, seed, cities + players);
+        this.cities = new RandomGenerator[cities];
+        this.players = new RandomGenerator[players];
+        System.arraycopy(streams, 0, this.cities, 0, cities);
+        System.arraycopy(streams, cities, this.players, 0, players);
+    }
+
+    /**
+     * Returns the name of the algorithm of the streams.
+     * @return the name of the algorithm
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the stream of a city.
+     * @param id the id of the city in the RoadGraph
+     * @return the stream of the city
+     */
+    public RandomGenerator getCity(int id) {
+        return cities[id];
+    }
+
+    /**
+     * Returns the stream of a player.
+     * @param index the index of the player (in the order of the players of the game)
+     * @return the stream of the player
+     */
+    public RandomGenerator getPlayer(int index) {
+        return players[index];
+    }
+
+    /**
+     * Creates a number of independent streams from a seed.
+     * @param algorithm the name of the RandomGenerator algorithm
+     * @param seed the seed
+     * @param count the number of streams
+     * @return the streams
+     * @throws IllegalArgumentException if the algorithm does not exist
+     */
+    public static RandomGenerator[] streams(String algorithm, long seed, int count) {
+        RandomGeneratorFactory<RandomGenerator> factory = RandomGeneratorFactory.of(algorithm);
+        RandomGenerator root = factory.create(seed);
+        RandomGenerator[] streams = new RandomGenerator[count];
+        for (int i = 0; i < count; i++) {
+            if (root instanceof SplittableGenerator) {
+                streams[i] = ((SplittableGenerator) root).split();
+            } else if (root instanceof JumpableGenerator) {
+                streams[i] = ((JumpableGenerator) root).copyAndJump();
+            } else {
+                streams[i] = factory.create(mix(seed + (i + 1) * 0x9E3779B97F4A7C15L));
+            }
+        }
+        return streams;
+    }
+
+    /**
+     * Mixes the bits of a seed (the finalizer of SplitMix64), so related seeds give unrelated streams.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,50 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the various methods and variables of RandomStreams
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class RandomStreamsTest {
+    private static final String[] ALGORITHMS = {"L64X128MixRandom", "Xoroshiro128PlusPlus", "SplittableRandom", "Random"};
+
+    @Test
+    public void sameSeed() {
+        for (String algorithm : ALGORITHMS) {
+            RandomStreams a = new RandomStreams(algorithm, 42, 5, 3);
+            RandomStreams b = new RandomStreams(algorithm, 42, 5, 3);
+            assertEquals(algorithm, a.getAlgorithm());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(a.getCity(i % 5).nextInt(), b.getCity(i % 5).nextInt());
+                assertEquals(a.getPlayer(i % 3).nextInt(), b.getPlayer(i % 3).nextInt());
+            }
+        }
+    }
+
+    @Test
+    public void independent() {
+        for (String algorithm : ALGORITHMS) {
+            RandomStreams a = new RandomStreams(algorithm, 7, 2, 0);
+            RandomStreams b = new RandomStreams(algorithm, 7, 2, 0);
+            //Draws from the first city do not change the stream of the second city
+            for (int i = 0; i < 1000; i++) {
+                a.getCity(0).nextLong();
+            }
+            assertEquals(b.getCity(1).nextLong(), a.getCity(1).nextLong());
+            //The streams are different
+            RandomGenerator[] streams = RandomStreams.streams(algorithm, 7, 2);
+            assertNotEquals(streams[0].nextLong(), streams[1].nextLong());
+        }
+    }
+
+    @Test
+    public void unknownAlgorithm() {
+        assertThrows(IllegalArgumentException.class, () -> new RandomStreams("NoSuchRandom", 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Game(0, new Settings()).setRandomAlgorithm("NoSuchRandom"));
+    }
+}
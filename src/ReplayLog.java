@@ -0,0 +1,442 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A compact binary log of a game, which can be replayed exactly.
+ * Everything in a game is determined by its seed and Settings except the clicks of the GUI player (and aborts),
+ * so the log only stores the seed, the Settings and these events, each as the number of steps since the previous
+ * event and the id of the clicked city (as varints). Every 'interval' steps a keyframe with the full state of the game
+ * is stored as well, so any step can be reached by restoring the last keyframe before it and playing at most
+ * 'interval' steps (see seek). Replaying does not wait for the GUI, so it is far faster than the game itself.
+ *
+ * Format: "NTRL", version, map fingerprint, seed, total steps, Settings, player names, interval,
+ * the events (step delta, city id + 1 or 0 for an abort) and the keyframes (step delta, length, state).
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class ReplayLog {
+    private static final int MAGIC = ('N' << 24) | ('T' << 16) | ('R' << 8) | 'L';
+    private static final int VERSION = 2;
+    private static final int ABORT = -1;            // City id of an abort event
+    static final int INTERVAL = 50;                 // Default number of steps between two keyframes
+
+    private int fingerprint;                        // Fingerprint of the map (see fingerprint)
+    private int seed;                               // Seed of the game after it was reset
+    private int totalSteps;                         // Total number of steps of the game
+    private Settings settings;                      // Settings of the game
+    private String[] players;                       // Names of the players (in the order of the game)
+    private int interval;                           // Number of steps between two keyframes
+    private int[] eventSteps = new int[16];         // Step of every event
+    private int[] eventCities = new int[16];        // City id of every event (or ABORT)
+    private int events;                             // Number of events
+    private int[] keyframeSteps = new int[16];      // Step of every keyframe
+    private List<byte[]> keyframes = new ArrayList<>();  // State of the game at every keyframe
+
+    /**
+     * Starts a new log of a game which has just been reset.
+     * @param game the game
+     * @param interval the number of steps between two keyframes
+     */
+    public ReplayLog(Game game, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The interval between keyframes must be positive");
+        }
+        fingerprint = fingerprint(game.getGraph());
+        seed = game.getSeed();
+        totalSteps = game.getTotalSteps();
+        settings = new Settings(game.getSettings());
+        players = new String[game.getPlayers().size()];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = game.getPlayers().get(i).getName();
+        }
+        this.interval = interval;
+    }
+
+    /**
+     * Creates an empty log (which is filled by read).
+     */
+    private ReplayLog() {
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    public int getTotalSteps() {
+        return totalSteps;
+    }
+
+    public Settings getSettings() {
+        return new Settings(settings);
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getEventCount() {
+        return events;
+    }
+
+    public int getKeyframeCount() {
+        return keyframes.size();
+    }
+
+    /**
+     * Records that a city was clicked.
+     * @param step the step of the game when the city was clicked
+     * @param c the city
+     */
+    void click(int step, City c) {
+        add(step, c.getId());
+    }
+
+    /**
+     * Records that the game was aborted.
+     * @param step the step of the game when it was aborted
+     */
+    void abort(int step) {
+        add(step, ABORT);
+    }
+
+    private void add(int step, int city) {
+        if (events == eventSteps.length) {
+            eventSteps = Arrays.copyOf(eventSteps, 2 * events);
+            eventCities = Arrays.copyOf(eventCities, 2 * events);
+        }
+        eventSteps[events] = step;
+        eventCities[events] = city;
+        events++;
+    }
+
+    /**
+     * Records a keyframe if the game is at the start of a step which is a multiple of the interval.
+     * @param game the game
+     * @param step the current step of the game
+     */
+    void keyframe(Game game, int step) {
+        int count = keyframes.size();
+        if (step % interval != 0 || (count > 0 && keyframeSteps[count - 1] >= step)) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            game.writeState(new DataOutputStream(bytes));
+            if (count == keyframeSteps.length) {
+                keyframeSteps = Arrays.copyOf(keyframeSteps, 2 * count);
+            }
+            keyframeSteps[count] = step;
+            keyframes.add(bytes.toByteArray());
+        } catch (IOException e) {
+            //Cannot happen for a ByteArrayOutputStream
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Resets a game to the start of the logged game (by using the seed and Settings of the log).
+     * The game must have the same map and the same players as the logged game (e.g. be created by Game.fromFile
+     * from the same file). The events of step 0 are applied as well.
+     * @param game the game
+     * @throws IllegalArgumentException if the game does not match the log
+     */
+    public void replay(Game game) {
+        start(game);
+        apply(game, 0, 0);
+    }
+
+    /**
+     * Brings a game to the start of a given step of the logged game (after the clicks of that step).
+     * Restores the last keyframe before the step and plays the remaining steps, so it takes at most 'interval' steps.
+     * @param game the game (with the same map and players as the logged game)
+     * @param step the step
+     * @throws IllegalArgumentException if the game does not match the log
+     */
+    public void seek(Game game, int step) {
+        step = Math.max(0, Math.min(step, totalSteps));
+        int k = Arrays.binarySearch(keyframeSteps, 0, keyframes.size(), step);
+        if (k < 0) {
+            k = -k - 2;
+        }
+        int now;
+        if (k < 0) {
+            replay(game);
+            now = 0;
+        } else {
+            start(game);
+            now = keyframeSteps[k];
+            try {
+                game.readState(new DataInputStream(new ByteArrayInputStream(keyframes.get(k))));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed keyframe at step " + now, e);
+            }
+        }
+        int event = firstEvent(now + 1);
+        while (now < step && game.ongoing()) {
+            game.step();
+            now++;
+            event = apply(game, event, now);
+        }
+    }
+
+    /**
+     * Plays the whole logged game (as fast as possible).
+     * @param game the game (with the same map and players as the logged game)
+     */
+    public void play(Game game) {
+        seek(game, totalSteps);
+    }
+
+    /**
+     * Resets a game with the seed and Settings of the log (without logging it again).
+     */
+    private void start(Game game) {
+        check(game);
+        game.setLogging(false);
+        game.setSettings(new Settings(settings));
+        game.setTotalSteps(totalSteps);
+        game.reset(seed);
+    }
+
+    /**
+     * Applies the events of a given step.
+     * @return the index of the first event after the step
+     */
+    private int apply(Game game, int event, int step) {
+        while (event < events && eventSteps[event] == step) {
+            if (eventCities[event] == ABORT) {
+                game.abort();
+            } else {
+                game.clickCity(game.getGraph().getCity(eventCities[event]));
+            }
+            event++;
+        }
+        return event;
+    }
+
+    /**
+     * Finds the first event at or after a given step.
+     */
+    private int firstEvent(int step) {
+        int event = 0;
+        while (event < events && eventSteps[event] < step) {
+            event++;
+        }
+        return event;
+    }
+
+    /**
+     * Checks that a game has the same map and players as the logged game.
+     */
+    private void check(Game game) {
+        if (fingerprint(game.getGraph()) != fingerprint) {
+            throw new IllegalArgumentException("The game does not have the map of the log");
+        }
+        List<Player> list = new ArrayList<>(game.getPlayers());
+        Collections.sort(list);
+        if (list.size() != players.length) {
+            throw new IllegalArgumentException("The game has " + list.size() + " players, but the log has " + players.length);
+        }
+        for (int i = 0; i < players.length; i++) {
+            if (!list.get(i).getName().equals(players[i])) {
+                throw new IllegalArgumentException("The game has the player " + list.get(i).getName() + " instead of " + players[i]);
+            }
+        }
+    }
+
+    /**
+     * Computes a fingerprint of a map (its cities, values and roads), so a log is not replayed on another map.
+     * @param graph the graph of the map
+     * @return the fingerprint
+     */
+    public static int fingerprint(RoadGraph graph) {
+        int hash = graph.getCityCount();
+        for (int id = 0; id < graph.getCityCount(); id++) {
+            City city = graph.getCity(id);
+            hash = 31 * hash + city.getName().hashCode();
+            hash = 31 * hash + city.getInitialValue();
+            for (int e = graph.getFirstRoad(id); e < graph.getFirstRoad(id + 1); e++) {
+                hash = 31 * hash + graph.getTarget(e);
+                hash = 31 * hash + graph.getLength(e);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the log in the binary format.
+     * @param out the stream to write to
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        writeVarint(data, VERSION);
+        data.writeInt(fingerprint);
+        writeVarint(data, seed);
+        writeVarint(data, totalSteps);
+        int active = 0;
+        for (int i = 0; i < 3; i++) {
+            active |= settings.isActive(i) ? 1 << i : 0;
+        }
+        writeVarint(data, active);
+        writeVarint(data, settings.getTollToBePaid());
+        writeVarint(data, settings.getRisk());
+        writeVarint(data, settings.getMinRobbery());
+        writeVarint(data, settings.getMaxRobbery());
+        writeVarint(data, settings.getGameSpeed());
+        writeVarint(data, players.length);
+        for (String name : players) {
+            data.writeUTF(name);
+        }
+        writeVarint(data, interval);
+
+        writeVarint(data, events);
+        int previous = 0;
+        for (int i = 0; i < events; i++) {
+            writeVarint(data, eventSteps[i] - previous);
+            writeVarint(data, eventCities[i] + 1);
+            previous = eventSteps[i];
+        }
+        writeVarint(data, keyframes.size());
+        previous = 0;
+        for (int i = 0; i < keyframes.size(); i++) {
+            writeVarint(data, keyframeSteps[i] - previous);
+            writeVarint(data, keyframes.get(i).length);
+            data.write(keyframes.get(i));
+            previous = keyframeSteps[i];
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a log in the binary format.
+     * @param in the stream to read from
+     * @return the log
+     * @throws IOException if the stream cannot be read or is not a log
+     */
+    public static ReplayLog read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a replay log");
+        }
+        int version = readVarint(data);
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay log version " + version);
+        }
+        ReplayLog log = new ReplayLog();
+        log.fingerprint = data.readInt();
+        log.seed = readVarint(data);
+        log.totalSteps = readVarint(data);
+        int active = readVarint(data);
+        boolean[] activePlayers = new boolean[3];
+        for (int i = 0; i < 3; i++) {
+            activePlayers[i] = (active & (1 << i)) != 0;
+        }
+        log.settings = new Settings(activePlayers, readVarint(data), readVarint(data), readVarint(data),
+                readVarint(data), readVarint(data));
+        log.players = new String[readVarint(data)];
+        for (int i = 0; i < log.players.length; i++) {
+            log.players[i] = data.readUTF();
+        }
+        log.interval = readVarint(data);
+
+        int events = readVarint(data);
+        int step = 0;
+        for (int i = 0; i < events; i++) {
+            step += readVarint(data);
+            log.add(step, readVarint(data) - 1);
+        }
+        int keyframes = readVarint(data);
+        log.keyframeSteps = new int[Math.max(16, keyframes)];
+        step = 0;
+        for (int i = 0; i < keyframes; i++) {
+            step += readVarint(data);
+            byte[] state = new byte[readVarint(data)];
+            data.readFully(state);
+            log.keyframeSteps[i] = step;
+            log.keyframes.add(state);
+        }
+        return log;
+    }
+
+    /**
+     * Saves the log to a file.
+     * @param path the path of the file
+     */
+    public void save(String path) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path))) {
+            write(out);
+        }
+    }
+
+    /**
+     * Loads a log from a file.
+     * @param path the path of the file
+     * @return the log
+     */
+    public static ReplayLog load(String path) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Writes a non-negative int in 7-bit groups (the smallest first), so small numbers take a single byte.
+     * @param out the output
+     * @param value the value (which must not be negative)
+     */
+    static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an int written by writeVarint.
+     * @param in the input
+     * @return the value
+     */
+    static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Writes an int which may be negative (zigzag encoded, so small negative numbers are small as well).
+     */
+    static void writeSigned(DataOutput out, int value) throws IOException {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads an int written by writeSigned.
+     */
+    static int readSigned(DataInput in) throws IOException {
+        int value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,187 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests recording, replaying and seeking a ReplayLog
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class ReplayLogTest {
+    private Game game;
+    private List<String> states;
+    @TempDir
+    Path dir;
+
+    /**
+     * Plays a logged game in which the GUI player is clicked at random, and remembers the state of every step
+     */
+    @BeforeEach
+    public void setUp() {
+        game = Game.fromFile("network.dat");
+        game.setLogFile(dir.resolve("last.log").toString());
+        game.setLogging(true);
+        game.reset();
+        states = new ArrayList<>();
+        Random clicks = new Random(1);
+        while (game.ongoing()) {
+            if (clicks.nextInt(4) == 0) {
+                RoadGraph graph = game.getGraph();
+                int city = game.getGUIPlayer().getPosition().getTo().getId();
+                int roads = graph.getFirstRoad(city + 1) - graph.getFirstRoad(city);
+                game.clickCity(graph.getCity(graph.getTarget(graph.getFirstRoad(city) + clicks.nextInt(roads))));
+            }
+            states.add(state(game));
+            game.step();
+        }
+        states.add(state(game));
+    }
+
+    /**
+     * Describes the money and positions of all players
+     */
+    private String state(Game game) {
+        StringBuilder sb = new StringBuilder(game.getStepsLeft() + ":");
+        for (Player p : game.getPlayers()) {
+            sb.append(p.getMoney()).append(' ').append(p.getPosition()).append(';');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes and reads a log
+     */
+    private ReplayLog copy(ReplayLog log) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        log.write(bytes);
+        return ReplayLog.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void replay() throws IOException {
+        ReplayLog log = copy(game.getLog());
+        assertTrue(log.getEventCount() > 50);
+        assertEquals(game.getTotalSteps() / log.getInterval(), log.getKeyframeCount());
+        //Replay the whole game in a new Game
+        Game replay = Game.fromFile("network.dat");
+        log.play(replay);
+        assertFalse(replay.ongoing());
+        assertEquals(states.get(states.size() - 1), state(replay));
+    }
+
+    @Test
+    public void seek() throws IOException {
+        ReplayLog log = copy(game.getLog());
+        Game replay = Game.fromFile("network.dat");
+        for (int step : new int[]{0, 1, 49, 50, 51, 333, 599, 600, 120}) {
+            log.seek(replay, step);
+            assertEquals(states.get(step), state(replay), "step " + step);
+        }
+        //Seeking forwards and backwards gives the same states
+        log.seek(replay, 275);
+        log.seek(replay, 600);
+        assertEquals(states.get(600), state(replay));
+        log.seek(replay, 275);
+        assertEquals(states.get(275), state(replay));
+    }
+
+    @Test
+    public void saved() throws IOException {
+        //The finished game was saved to the log file, and not to the working directory
+        ReplayLog log = ReplayLog.load(game.getLogFile());
+        assertEquals(game.getLog().getEventCount(), log.getEventCount());
+        Game replay = Game.fromFile("network.dat");
+        log.play(replay);
+        assertEquals(states.get(states.size() - 1), state(replay));
+    }
+
+    @Test
+    public void changedSettings() throws IOException {
+        //The Options change the Settings before the game is reset (see GUI.applyOptions), so the log has them
+        //(the Settings are created here, as their setters save them to 'settings.dat')
+        Game changed = Game.fromFile("network.dat");
+        changed.setLogFile(null);
+        changed.setLogging(true);
+        changed.setSettings(new Settings(new boolean[] {false, true, true}, 40, 50, 10, 50, 2));
+        changed.reset();
+        Random clicks = new Random(2);
+        while (changed.ongoing()) {
+            if (clicks.nextInt(4) == 0) {
+                RoadGraph graph = changed.getGraph();
+                int city = changed.getGUIPlayer().getPosition().getTo().getId();
+                int roads = graph.getFirstRoad(city + 1) - graph.getFirstRoad(city);
+                changed.clickCity(graph.getCity(graph.getTarget(graph.getFirstRoad(city) + clicks.nextInt(roads))));
+            }
+            changed.step();
+        }
+        //A game with the Settings of 'settings.dat' replays the game with the changed Settings
+        Game replay = Game.fromFile("network.dat");
+        copy(changed.getLog()).play(replay);
+        assertFalse(replay.getSettings().isActive(0));
+        assertEquals(50, replay.getSettings().getRisk());
+        assertEquals(state(changed), state(replay));
+    }
+
+    @Test
+    public void abort() throws IOException {
+        game.setLogging(true);
+        game.reset();
+        for (int i = 0; i < 100; i++) {
+            game.step();
+        }
+        game.abort();
+        Game replay = Game.fromFile("network.dat");
+        copy(game.getLog()).play(replay);
+        assertFalse(replay.ongoing());
+        assertEquals(game.getTotalSteps() - 100, replay.getStepsLeft());
+        assertEquals(state(game), state(replay));
+    }
+
+    @Test
+    public void compact() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReplayLog log = game.getLog();
+        log.write(bytes);
+        //Without keyframes every click takes two bytes
+        ReplayLog clicks = new ReplayLog(game, 1000);
+        ByteArrayOutputStream small = new ByteArrayOutputStream();
+        clicks.write(small);
+        assertTrue(small.size() < 100);
+        assertTrue(bytes.size() < log.getKeyframeCount() * 200 + log.getEventCount() * 2 + 100);
+    }
+
+    @Test
+    public void otherGame() {
+        Game other = Game.fromFile("network.dat");
+        other.getPlayers().add(new GreedyPlayer(other.getRandomStartingPosition()));
+        assertThrows(IllegalArgumentException.class, () -> game.getLog().replay(other));
+        assertThrows(IOException.class, () -> ReplayLog.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4})));
+    }
+
+    @Test
+    public void varints() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int[] values = {0, 1, 127, 128, 300, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        for (int v : values) {
+            ReplayLog.writeSigned(out, v);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int v : values) {
+            assertEquals(v, ReplayLog.readSigned(in));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An immutable compressed-sparse-row graph of every city and road in a game.
+ * Every city gets an id in [0, getCityCount()), and the roads starting in city i are the roads
+ * with indices getFirstRoad(i) ... getFirstRoad(i+1)-1 (in the same order as Country.getRoads).
+ * The graph covers all countries, including the roads crossing a border, which are also kept in a registry of their
+ * own (see isBorderRoad and getBorderRoad), so tolls and the GUI do not have to compare the countries of the cities.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class RoadGraph {
+    private final City[] cities;      // Every city by id
+    private final int[] offsets;      // Index of the first road of every city (and the number of roads last)
+    private final int[] targets;      // Id of the city every road goes to
+    private final int[] lengths;      // Length of every road
+    private final Road[] roads;       // Every road (for code which needs Road objects)
+    private final BitSet border;      // Whether every road goes from one country to another
+    private final int[] borderRoads;  // Indices of the roads crossing a border, in increasing order
+
+    /**
+     * Compiles the networks of a list of countries into a graph and assigns ids to the cities.
+     * @param countries the countries of the graph
+     */
+    public RoadGraph(List<Country> countries) {
+        int cityCount = 0;
+        int roadCount = 0;
+        for (Country country : countries) {
+            for (City city : country.getCities()) {
+                city.setId(cityCount++);
+                roadCount += country.getRoads(city).size();
+            }
+        }
+        cities = new City[cityCount];
+        offsets = new int[cityCount + 1];
+        targets = new int[roadCount];
+        lengths = new int[roadCount];
+        roads = new Road[roadCount];
+        border = new BitSet(roadCount);
+        int e = 0;
+        for (Country country : countries) {
+            for (City city : country.getCities()) {
+                cities[city.getId()] = city;
+                offsets[city.getId()] = e;
+                for (Road road : country.getRoads(city)) {
+                    roads[e] = road;
+                    targets[e] = road.getTo().getId();
+                    lengths[e] = road.getLength();
+                    if (!road.getFrom().getCountry().equals(road.getTo().getCountry())) {
+                        border.set(e);
+                    }
+                    e++;
+                }
+            }
+        }
+        offsets[cityCount] = e;
+        borderRoads = border.stream().toArray();
+    }
+
+    /**
+     * Determines whether a city is part of this graph.
+     * @param city the city
+     * @return true if the city is part of this graph
+     */
+    public boolean contains(City city) {
+        int id = city.getId();
+        return id >= 0 && id < cities.length && cities[id] == city;
+    }
+
+    /**
+     * Returns the number of cities in this graph.
+     * @return the number of cities
+     */
+    public int getCityCount() {
+        return cities.length;
+    }
+
+    /**
+     * Returns the number of roads in this graph.
+     * @return the number of roads
+     */
+    public int getRoadCount() {
+        return roads.length;
+    }
+
+    /**
+     * Returns the city with a given id.
+     * @param id the id of the city
+     * @return the city
+     */
+    public City getCity(int id) {
+        return cities[id];
+    }
+
+    /**
+     * Returns the index of the first road starting in a city.
+     * The roads of city i end right before getFirstRoad(i+1).
+     * @param id the id of the city
+     * @return the index of the first road of the city
+     */
+    public int getFirstRoad(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * Returns the id of the city a road goes to.
+     * @param road the index of the road
+     * @return the id of the city at the end of the road
+     */
+    public int getTarget(int road) {
+        return targets[road];
+    }
+
+    /**
+     * Returns the length of a road.
+     * @param road the index of the road
+     * @return the length of the road
+     */
+    public int getLength(int road) {
+        return lengths[road];
+    }
+
+    /**
+     * Returns a road as a Road object.
+     * @param road the index of the road
+     * @return the road
+     */
+    public Road getRoad(int road) {
+        return roads[road];
+    }
+
+    /**
+     * Determines whether a road goes from one country to another.
+     * @param road the index of the road
+     * @return true if the road crosses a border
+     */
+    public boolean isBorderRoad(int road) {
+        return border.get(road);
+    }
+
+    /**
+     * Returns the number of roads crossing a border (every direction counts).
+     * @return the number of border roads
+     */
+    public int getBorderRoadCount() {
+        return borderRoads.length;
+    }
+
+    /**
+     * Returns a road crossing a border.
+     * @param i the number of the border road, in [0, getBorderRoadCount())
+     * @return the index of the road (the border roads are in the order of their indices)
+     */
+    public int getBorderRoad(int i) {
+        return borderRoads[i];
+    }
+
+    /**
+     * Finds the index of the first road from one city to another.
+     * @param from the id of the city at the start of the road
+     * @param to the id of the city at the end of the road
+     * @return the index of the road, or -1 if there is no such road
+     */
+    public int findRoad(int from, int to) {
+        for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+            if (targets[e] == to) {
+                return e;
+            }
+        }
+        return -1;
+    }
+}
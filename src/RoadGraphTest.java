@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the various methods and variables of RoadGraph
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class RoadGraphTest {
+    private Game game;
+    private Country country1, country2;
+    private City cityA, cityB, cityC, cityD;
+
+    @BeforeEach
+    public void setUp() {
+        // Create game object
+        game = new Game(0);
+        // Create countries
+        country1 = new Country("Country 1");
+        country2 = new Country("Country 2");
+        game.addCountry(country1);
+        game.addCountry(country2);
+        // Create cities
+        cityA = new City("City A", 80, country1);
+        cityB = new City("City B", 60, country1);
+        cityC = new City("City C", 40, country1);
+        cityD = new City("City D", 100, country2);
+        country1.addCity(cityA);
+        country1.addCity(cityB);
+        country1.addCity(cityC);
+        country2.addCity(cityD);
+        // Create roads
+        game.addRoads(cityA, cityB, 4);
+        game.addRoads(cityA, cityC, 3);
+        game.addRoads(cityC, cityD, 2);
+    }
+
+    @Test
+    public void ids() {
+        RoadGraph graph = game.getGraph();
+        assertEquals(4, graph.getCityCount());
+        //Cities are numbered by country and then by name
+        assertEquals(0, cityA.getId());
+        assertEquals(1, cityB.getId());
+        assertEquals(2, cityC.getId());
+        assertEquals(3, cityD.getId());
+        assertEquals(cityC, graph.getCity(2));
+        assertTrue(graph.contains(cityD));
+        assertFalse(graph.contains(new City("City E", 10, country2)));
+    }
+
+    @Test
+    public void roads() {
+        RoadGraph graph = game.getGraph();
+        //Every road is stored in both directions, also across the border
+        assertEquals(6, graph.getRoadCount());
+        assertEquals(0, graph.getFirstRoad(cityA.getId()));
+        assertEquals(2, graph.getFirstRoad(cityB.getId()));
+        assertEquals(3, graph.getFirstRoad(cityC.getId()));
+        assertEquals(5, graph.getFirstRoad(cityD.getId()));
+        assertEquals(6, graph.getFirstRoad(cityD.getId() + 1));
+        //The roads of a city are in the same order as in Country.getRoads
+        int e = graph.getFirstRoad(cityA.getId());
+        for (Road road : country1.getRoads(cityA)) {
+            assertEquals(road, graph.getRoad(e));
+            assertEquals(road.getTo().getId(), graph.getTarget(e));
+            assertEquals(road.getLength(), graph.getLength(e));
+            e++;
+        }
+        assertEquals(cityC.getId(), graph.getTarget(graph.getFirstRoad(cityD.getId())));
+    }
+
+    @Test
+    public void findRoad() {
+        RoadGraph graph = game.getGraph();
+        assertEquals(2, graph.getLength(graph.findRoad(cityD.getId(), cityC.getId())));
+        assertEquals(-1, graph.findRoad(cityB.getId(), cityC.getId()));
+    }
+
+    @Test
+    public void rebuild() {
+        RoadGraph graph = game.getGraph();
+        assertSame(graph, game.getGraph());
+        //Changing the network discards the graph
+        game.addRoads(cityB, cityC, 7);
+        assertNotSame(graph, game.getGraph());
+        assertEquals(8, game.getGraph().getRoadCount());
+        assertEquals(new Position(cityB, cityC, 7), country1.readyToTravel(cityB, cityC));
+        assertEquals(new Position(cityC, cityD, 2), country1.readyToTravel(cityC, cityD));
+        assertEquals(new Position(cityB, cityB, 0), country1.readyToTravel(cityB, cityD));
+    }
+
+    @Test
+    public void getRoad() {
+        game.addRoads(cityA, cityB, 2);
+        //The shortest road between two cities is found
+        assertEquals(new Road(cityA, cityB, 2), country1.getRoad(cityA, cityB));
+        assertEquals(new Road(cityD, cityC, 2), country2.getRoad(cityD, cityC));
+        assertNull(country1.getRoad(cityB, cityC));
+        //Roads are only found in the country of the city where they start
+        assertNull(country2.getRoad(cityA, cityB));
+    }
+
+    @Test
+    public void borderRoads() {
+        RoadGraph graph = game.getGraph();
+        //Only the two directions of the road from City C to City D cross a border
+        assertEquals(2, graph.getBorderRoadCount());
+        int cd = graph.findRoad(cityC.getId(), cityD.getId());
+        int dc = graph.findRoad(cityD.getId(), cityC.getId());
+        assertEquals(cd, graph.getBorderRoad(0));
+        assertEquals(dc, graph.getBorderRoad(1));
+        assertTrue(graph.isBorderRoad(dc));
+        assertFalse(graph.isBorderRoad(graph.findRoad(cityA.getId(), cityB.getId())));
+    }
+
+    @Test
+    public void addRoads() {
+        //Roads are only added to the countries of their cities, and only if those countries are part of the game
+        Country country3 = new Country("Country 3");
+        City cityE = new City("City E", 10, country3);
+        country3.addCity(cityE);
+        game.addRoads(cityB, cityD, 5);
+        assertEquals(new Road(cityB, cityD, 5), country1.getRoad(cityB, cityD));
+        assertEquals(new Road(cityD, cityB, 5), country2.getRoad(cityD, cityB));
+        assertNull(country1.getRoad(cityD, cityB));
+        assertEquals(4, game.getGraph().getBorderRoadCount());
+        game.addRoads(cityD, cityE, 5);
+        assertTrue(country3.getRoads(cityE).isEmpty());
+        assertEquals(1, country2.getRoads(cityD).stream().filter(r -> r.getTo() == cityE).count());
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Arrays;
+
+/**
+ * A hash table from a pair of city ids to the index of the road between them in a RoadGraph.
+ * The pair is packed into a single long, and the table uses open addressing with linear probing,
+ * so a lookup neither boxes its key nor allocates.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class RoadIndex {
+    private static final long EMPTY = -1;   // Key of an empty slot (ids are never negative)
+
+    private long[] keys;                    // Packed (from, to) of every slot
+    private int[] roads;                    // Road index of every slot
+    private int size;                       // Number of keys in the table
+
+    /**
+     * Creates an index with room for a given number of roads.
+     * @param expected the expected number of roads
+     */
+    public RoadIndex(int expected) {
+        int capacity = 4;
+        while (capacity < 2 * expected) {
+            capacity *= 2;
+        }
+        keys = new long[capacity];
+        roads = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Adds the road between two cities, unless the index already has a road between them.
+     * @param from the id of the city at the start of the road
+     * @param to the id of the city at the end of the road
+     * @param road the index of the road
+     */
+    public void add(int from, int to, int road) {
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        long key = pack(from, to);
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        keys[slot] = key;
+        roads[slot] = road;
+        size++;
+    }
+
+    /**
+     * Finds the road between two cities.
+     * @param from the id of the city at the start of the road
+     * @param to the id of the city at the end of the road
+     * @return the index of the road, or -1 if there is no road between the cities
+     */
+    public int find(int from, int to) {
+        long key = pack(from, to);
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return roads[slot];
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of roads in the index.
+     * @return the number of roads
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldRoads = roads;
+        keys = new long[2 * oldKeys.length];
+        roads = new int[2 * oldKeys.length];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add((int) (oldKeys[i] >>> 32), (int) oldKeys[i], oldRoads[i]);
+            }
+        }
+    }
+
+    /**
+     * Packs two city ids into a single key.
+     */
+    private static long pack(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Finds the first slot of a key (Fibonacci hashing).
+     */
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (keys.length - 1);
+    }
+}
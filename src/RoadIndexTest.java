@@ -0,0 +1,47 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the various methods and variables of RoadIndex
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class RoadIndexTest {
+
+    @Test
+    public void find() {
+        RoadIndex index = new RoadIndex(2);
+        assertEquals(-1, index.find(0, 1));
+        index.add(0, 1, 7);
+        index.add(1, 0, 8);
+        assertEquals(7, index.find(0, 1));
+        assertEquals(8, index.find(1, 0));
+        assertEquals(-1, index.find(0, 2));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void firstRoadWins() {
+        RoadIndex index = new RoadIndex(2);
+        index.add(3, 4, 1);
+        index.add(3, 4, 2);
+        assertEquals(1, index.find(3, 4));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void grow() {
+        //The index grows beyond the expected number of roads
+        RoadIndex index = new RoadIndex(1);
+        for (int i = 0; i < 1000; i++) {
+            index.add(i, i + 1, i);
+        }
+        assertEquals(1000, index.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, index.find(i, i + 1));
+            assertEquals(-1, index.find(i + 1, i));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Compares the time of a complete game with step() (which moves every player in every step)
+ * and advance() (which uses a TimingWheel to touch only the players who arrive).
+ * The map is 'network.dat' with a growing number of random and greedy players.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class SchedulerBenchmark {
+    private static final int[] PLAYERS = {4, 40, 400, 4000, 40000, 400000, 1000000};
+
+    /**
+     * Runs the benchmark.
+     * @param args [largest number of players to run with step()]
+     */
+    public static void main(String[] args) {
+        int stepLimit = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        System.out.println("players\tstep() ms\tadvance() ms\tsame money");
+        for (int players : PLAYERS) {
+            long stepMoney = -1;
+            String stepTime = "-";
+            if (players <= stepLimit) {
+                Game game = createGame(players);
+                long start = System.nanoTime();
+                while (game.ongoing()) {
+                    game.step();
+                }
+                stepTime = String.format("%.1f", (System.nanoTime() - start) / 1e6);
+                stepMoney = totalMoney(game);
+            }
+            Game game = createGame(players);
+            long start = System.nanoTime();
+            while (game.ongoing()) {
+                game.advance();
+            }
+            String advanceTime = String.format("%.1f", (System.nanoTime() - start) / 1e6);
+            String same = stepMoney < 0 ? "-" : String.valueOf(stepMoney == totalMoney(game));
+            System.out.println(players + "\t" + stepTime + "\t\t" + advanceTime + "\t\t" + same);
+        }
+    }
+
+    /**
+     * Creates a game on 'network.dat' with a given number of random and greedy players.
+     * @param players the number of players
+     * @return the game, ready to be played
+     */
+    private static Game createGame(int players) {
+        Game game = Game.fromFile("network.dat");
+        game.getPlayers().clear();
+        for (int i = 0; i < players; i++) {
+            Position start = game.getRandomStartingPosition();
+            game.getPlayers().add(i % 2 == 0 ? new RandomPlayer(start) : new GreedyPlayer(start));
+        }
+        game.getRandom().setSeed(0);
+        game.reset();
+        return game;
+    }
+
+    /**
+     * Sums the money of all players.
+     * @param game the game
+     * @return the total money of all players
+     */
+    private static long totalMoney(Game game) {
+        long money = 0;
+        for (Player p : game.getPlayers()) {
+            money += p.getMoney();
+        }
+        return money;
+    }
+}
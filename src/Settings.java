@@ -10,6 +10,7 @@ public class Settings {
 
 	private boolean[] activePlayers;
 	private int minLoss, maxLoss, gameSpeed, tollSize, robRisk;
+	private int version;
 	
 	/**
 	 * Instantiates a new Settings object based on its values.
@@ -113,6 +114,7 @@ public class Settings {
 	}
 	
 	private void save() {
+		version++;
 		try{
 			PrintWriter out = new PrintWriter("settings.dat");
 			out.print(this);
@@ -157,6 +159,15 @@ public class Settings {
 		save();
 	}
 	
+	/**
+	 * Gets the version of these settings, which is increased every time a setting is changed.
+	 * Values derived from the settings can be cached as long as the version is the same.
+	 * @return The version of these settings.
+	 */
+	public int getVersion(){
+		return version;
+	}
+	
 	/**
 	 * Gets the current toll size (in % as an integer).
 	 * @return
@@ -1,236 +1,189 @@
 import java.awt.Color;
-import java.util.HashMap;
-import java.util.Stack;
+import java.util.List;
 /**
- * Models a smart player which uses a depth-first search to determine the optimal path.
+ * Models a smart player which searches the network (by default depth-first) to determine the optimal path.
  * @author Nikolaj Ignatieff Schwartzbach. 
  * @version August 2019.
  */
 public class SmartPlayer extends Player {
 
+    /* Max number of steps to look forward (determined experimentally).
+       If you have a fast computer, you can increase this number.*/
+    private static final int MAX_DEPTH = 200;
+
+    private Planner planner;    // Planner used to choose the next city.
+
+    private boolean planCache;  // Whether the rest of the last path is followed while its cities are unchanged.
+    private int[] planCities;   // Ids of the cities of the last path (in travel order; replaced, never changed).
+    private int[] planVersions; // Versions of the values of those cities when the path was planned.
+    private int planIndex;      // Index of the next city of the last path.
+    private int hits;           // Number of decisions which followed the last path.
+    private int misses;         // Number of decisions which searched a new path (with the plan cache).
+    private ExpectedPayoffs payoffs; // Expected payoffs of the cities (null if paths are valued by the city values).
+
     /**
      * Creates a new SmartPlayer with the specified position.
      * @param pos   Position of this player.
      */
     public SmartPlayer(Position pos) {
+        this(pos, new DepthFirstPlanner(MAX_DEPTH));
+    }
+
+    /**
+     * Creates a new SmartPlayer with the specified position and planner.
+     * @param pos       Position of this player.
+     * @param planner   Planner used to choose the next city.
+     */
+    public SmartPlayer(Position pos, Planner planner) {
         super(pos);
+        this.planner = planner;
     }
 
     @Override
-    public boolean step() {
-        if(super.step()) {
-            City city = getPosition().getTo();
-            setPosition(getCountry().readyToTravel(city, maximizeValue(city, getCountry().getGame().getStepsLeft())));
-            return true;
-        } 
-        return false;
+    public void decide() {
+        City city = getPosition().getTo();
+        if(!planCache) {
+            setPosition(getCountry().readyToTravel(city, planner.nextCity(this, city, getGame().getStepsLeft())));
+            return;
+        }
+        Game game = getGame();
+        if(followsPlan(game, city)) {
+            hits++;
+        } else {
+            misses++;
+            plan(game, city);
+        }
+        City next = city;
+        if(planIndex < planCities.length) {
+            next = game.getGraph().getCity(planCities[planIndex++]);
+        }
+        setPosition(getCountry().readyToTravel(city, next));
     }
 
     /**
-     * Determine the next city to travel to.
-     * Calculates the 'maxDepth'-steps optimal route (DFS) and returns
-     * the next city of the path.
-     * @param c The current city.
-     * @param n The number of steps to look forward (is capped at 'maxDepth').
+     * Determines whether the rest of the last path can be followed from a city, i.e. the player arrived at the
+     * city where the path continues, and none of the cities left on the path has changed value since it was planned
+     * (this includes arrivals of other players; a city visited again by this player also counts as changed).
+     * Changes of cities off the path and the longer horizon are not considered, so following the path saves
+     * a search at the risk of a slightly worse path.
      */
-    private City maximizeValue(City c, int n) {
-        HashMap<City, Integer> visited = new HashMap<City, Integer>();
-        visited.put(c, 1);
-        PlayerPath best = maximizeValue(visited, c, n);
-        if(best.isEmpty()) {
-            return c;
+    private boolean followsPlan(Game game, City city) {
+        if(planCities == null || planIndex == 0 || planIndex >= planCities.length
+                || planCities[planIndex - 1] != city.getId()) {
+            return false;
+        }
+        RoadGraph graph = game.getGraph();
+        for(int i = planIndex; i < planCities.length; i++) {
+            if(game.getVersion(graph.getCity(planCities[i])) != planVersions[i]) {
+                return false;
+            }
         }
-        return best.getRoad().getTo();
+        return true;
     }
 
     /**
-     * Determine the next city to travel to.
-     * Calculates the 'maxDepth'-steps optimal route (DFS) and returns
-     * the next city of the path.
-     * @param visits    The number of times each city has been visited.
-     * @param c         The current city.
-     * @param i         The number of steps to look forward (is capped at 'maxDepth').
+     * Searches a new path from a city and remembers its cities and their versions.
      */
-    private PlayerPath maximizeValue(HashMap<City, Integer> visits, City c, int i) {
-        /* Max number of steps to look forward (determined experimentally).
-           If you have a fast computer, you can increase this number.*/
-        int maxDepth = 200;
-        
-        // Number of steps to look forward
-        int n = Math.min(maxDepth, i);
-        
-        // Initialize best path.
-        PlayerPath p = new PlayerPath(this);
-        
-        // Consider each road from current city.
-        for(Road r : c.getCountry().getRoads(c)) {
-            
-            // Only consider roads we can reach in due time.
-            if(r.getLength() <= n) {
-                
-                // Prepare recursive call. Update 'visits'.
-                HashMap<City, Integer> newVisits = new HashMap<City, Integer>(visits);
-                City to = r.getTo();
-                int v = 0;
-                if(newVisits.containsKey(to)) {
-                    v = newVisits.get(to);
-                }
-                newVisits.put(to, ++v);
-
-                // Call procedure recursively.
-                PlayerPath subPlayerPath = maximizeValue(newVisits, to, n - r.getLength());
-                subPlayerPath.addRoad(r, v);
-                double newValue = subPlayerPath.getValue();
-                
-                // If the new path is better, substitute it.
-                if(subPlayerPath.compareTo(p) == 1) {
-                    p = subPlayerPath;
-                }
-            }
+    private void plan(Game game, City city) {
+        List<Road> roads = planner.bestPath(this, city, Math.min(planner.getMaxDepth(), game.getStepsLeft())).getRoads();
+        planCities = new int[roads.size()];
+        planVersions = new int[roads.size()];
+        for(int i = 0; i < planCities.length; i++) {
+            City to = roads.get(i).getTo();
+            planCities[i] = to.getId();
+            planVersions[i] = game.getVersion(to);
         }
-
-        // Return the best path.
-        return p;
+        planIndex = 0;
     }
 
     @Override
-    public String getName() {
-        return "Smart Player";
+    public boolean decidesInParallel() {
+        return true;
     }
 
+    /**
+     * Creates a copy of this player with its own planner (so the copies can search at the same time).
+     * The last path of the plan cache is shared, as it is replaced rather than changed.
+     */
     @Override
-    public Color getColor() {
-        return new Color(255,225,33);
+    public SmartPlayer copy() {
+        SmartPlayer p = (SmartPlayer) super.copy();
+        p.planner = planner.copy();
+        if(payoffs != null) {
+            p.payoffs = new ExpectedPayoffs();
+        }
+        return p;
     }
-}
-
-/**
- * Models a possible path for the smart player.
- * Is used by the searching algorithm for SmartPlayer to model the paths it can take.
- * @author Nikolaj I. Schwartzbach
- * @version August 2019
- */
-class PlayerPath {
-
-    private Stack<Road> edges;              // Ordered list of roads to choose.
-    private int length;                     // The length of the path (in steps).
-    private double value;                   // The expected difference in player value after path.
-    private double impulsiveness = 1.10;    // Propensity to prefer shorter paths (i = 1.0 corresponds to no preference in length).
-    private SmartPlayer source;             // Reference to the player object.
 
     /**
-     * Initialize a new path with given player.
-     * @param source    Reference to the smart player.
+     * Turns the plan cache on or off. With the plan cache the player follows the rest of its last path as long as
+     * none of the cities left on it have changed value, instead of searching again on every arrival.
+     * The player then plays differently (see followsPlan), so it is off by default.
+     * @param planCache true to turn the plan cache on.
      */
-    public PlayerPath(SmartPlayer source) {
-        this.source = source;
-        edges = new Stack<Road>();
-        length = 0;
-        value = 0;
-    }
-
-    public int compareTo(PlayerPath p) {
-        if(value > p.value) { return 1; }
-        if(value < p.value) { return -1; }
-        if(length < p.length) { return 1; }
-        if(length > p.length) { return -1; }
-        return getRoad().compareTo(p.edges.peek());
+    public void setPlanCache(boolean planCache) {
+        this.planCache = planCache;
+        planCities = null;
     }
 
     /**
-     * Return the first road in this path.
-     * @return The first road in this path.
+     * Turns the expectimax evaluation on or off. With the expectimax evaluation the cities of a path are valued
+     * by the expected payoff of arriving in them (see ExpectedPayoffs), which takes the robberies of a MafiaCountry
+     * into account, instead of by their values. It is off by default.
+     * @param expectimax true to value paths by expected payoffs.
      */
-    public Road getRoad() {
-        return edges.peek();
+    public void setExpectimax(boolean expectimax) {
+        payoffs = expectimax ? new ExpectedPayoffs() : null;
     }
 
     /**
-     * Return the length of this path (in steps).
-     * @return The number of steps to walk this path.
+     * Gets the expected payoffs used by the expectimax evaluation.
+     * Planners update them (see ExpectedPayoffs.update) before they search.
+     * @return The expected payoffs, or null if paths are valued by the values of the cities.
      */
-    public int getLength() {
-        return length;
+    public ExpectedPayoffs getExpectedPayoffs() {
+        return payoffs;
     }
 
     /**
-     * Return the expected difference in player value after path.
-     * @return Expected difference in player value after path.
+     * Gets the number of decisions which followed the last path (with the plan cache).
+     * @return The number of hits.
      */
-    public double getValue() {
-        return value;
+    public int getCacheHits() {
+        return hits;
     }
 
     /**
-     * Determines if this path is empty or not.
-     * @return True, if this path is empty; false otherwise.
+     * Gets the number of decisions which searched a new path (with the plan cache).
+     * @return The number of misses.
      */
-    public boolean isEmpty() {
-        return edges.isEmpty();
-    }
-
-    @Override
-    public String toString() {
-        if(edges.isEmpty()){ return "[]"; }
-        StringBuilder sb = new StringBuilder("[");
-        for(Road r : edges) {
-            sb.append(r + ", ");
-        }
-        String s = sb.toString();
-        return s.substring(0,s.length()-2)+"]";
+    public int getCacheMisses() {
+        return misses;
     }
 
     /**
-     * Adds a new road to the path in question.
-     * @param r The road object to add.
-     * @param penalty The accumulated penalty (see valueFrom).
+     * Gets the planner used to choose the next city.
+     * @return The planner of this player.
      */
-    public void addRoad(Road r, int penalty) {
-        if(!edges.isEmpty()) {
-            Road top = getRoad();
-            if(!top.getFrom().equals(r.getTo())) {
-                throw new RuntimeException("Invalid road. You tried to add road to "+r.getTo()+", but the next city is "+top.getFrom());
-            }
-        }
-        else {
-            value += valueFrom(r, penalty);
-        }
-        edges.add(r);
-        length += r.getLength();
-        value += valueTo(r, penalty);
+    public Planner getPlanner() {
+        return planner;
     }
 
     /**
-     * Computes the value of the current path after inserting the possible road 'r', being in position 'from'.
-     * longer paths are penalized by O(impulsiveness^length).
-     * 
-     * Takes into account CapitalCity and MafiaCountry implementations using the
-     * expectation of each random variable.
-     * 
-     * @param r The possible road to add.
-     * @param penalty The length of the path in question; 
-     * @return The expected value of the new path in question.
+     * Changes the planner used to choose the next city.
+     * @param planner The new planner.
      */
-    public double valueFrom(Road r, int penalty) {
-        Settings s = r.getFrom().getCountry().getGame().getSettings();
-        double v = r.getFrom().getValue() / (Math.pow(2,penalty-1) * Math.pow(impulsiveness, edges.size()));
-        return v;
+    public void setPlanner(Planner planner) {
+        this.planner = planner;
     }
 
-    /**
-     * Computes the value of the current path after inserting the possible road 'r', being in position 'to'.
-     * longer paths are penalized by O(impulsiveness^length).
-     * 
-     * Takes into account BorderCity, CapitalCity and MafiaCountry implementations using the
-     * expectation of each random variable.
-     * 
-     * @param r The possible road to add.
-     * @param penalty The length of the path in question; 
-     * @return The expected value of the new path in question.
-     */
-    public double valueTo(Road r, int penalty) {
-        Settings s = r.getFrom().getCountry().getGame().getSettings();
-        double v = r.getTo().getValue() / (Math.pow(2,penalty-1) * Math.pow(impulsiveness, edges.size()));
-        return v;
+    @Override
+    public String getName() {
+        return "Smart Player";
     }
-}
\ No newline at end of file
+
+    @Override
+    public Color getColor() {
+        return new Color(255,225,33);
+    }
+}
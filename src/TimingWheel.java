@@ -0,0 +1,192 @@
+import java.util.Arrays;
+
+/**
+ * A hierarchical timing wheel which schedules integer items (e.g. player indices) at integer ticks.
+ * Level 0 has a slot for each of the next 64 ticks, level 1 a slot for each of the next 64 blocks of
+ * 64 ticks, and so on. Whenever the current tick enters a new block, the slot of that block is moved
+ * one level down, so scheduling and polling take constant time (amortized) regardless of the number of items.
+ * Every item is scheduled at most once; rescheduling an item cancels its old tick.
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class TimingWheel {
+    private static final int BITS = 6;                // Bits of a slot index
+    private static final int SLOTS = 1 << BITS;       // Number of slots of a level
+    private static final int LEVELS = 4;              // Number of levels (the wheel spans 64^4 ticks)
+
+    private int now;                  // Current tick
+    private int[] ticks;              // Scheduled tick of every item (or -1 if it is not scheduled)
+    private int[][][] buckets;        // Entries (item, tick) of every slot of every level
+    private int[][] sizes;            // Number of ints used in every bucket
+    private int[] overflow;           // Entries more than 64^4 ticks ahead
+    private int overflowSize;
+    private int[] due;                // Items returned by the last poll
+    private int dueCount;
+
+    /**
+     * Creates an empty timing wheel.
+     * @param items the number of items (the items are 0, 1, ..., items-1)
+     * @param now the current tick
+     */
+    public TimingWheel(int items, int now) {
+        this.now = now;
+        ticks = new int[items];
+        Arrays.fill(ticks, -1);
+        buckets = new int[LEVELS][SLOTS][];
+        sizes = new int[LEVELS][SLOTS];
+        for (int[][] level : buckets) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new int[4];
+            }
+        }
+        overflow = new int[4];
+        due = new int[16];
+    }
+
+    /**
+     * Returns the current tick.
+     * @return the current tick
+     */
+    public int getNow() {
+        return now;
+    }
+
+    /**
+     * Returns the tick at which an item is scheduled.
+     * @param item the item
+     * @return the tick of the item, or -1 if it is not scheduled
+     */
+    public int getTick(int item) {
+        return ticks[item];
+    }
+
+    /**
+     * Schedules an item at a given tick (and cancels any earlier tick of the item).
+     * @param item the item
+     * @param tick the tick, which must not be before the current tick
+     */
+    public void schedule(int item, int tick) {
+        if (tick < now) {
+            throw new IllegalArgumentException("Tick " + tick + " is before the current tick " + now);
+        }
+        ticks[item] = tick;
+        insert(item, tick);
+    }
+
+    /**
+     * Cancels an item, so it is not returned by poll.
+     * @param item the item
+     */
+    public void cancel(int item) {
+        ticks[item] = -1;
+    }
+
+    /**
+     * Removes the items scheduled at the current tick and advances the wheel to the next tick.
+     * The items are available through getDue() in increasing order.
+     * @return the number of items scheduled at the current tick
+     */
+    public int poll() {
+        int slot = now & (SLOTS - 1);
+        int[] bucket = buckets[0][slot];
+        int size = sizes[0][slot];
+        dueCount = 0;
+        for (int i = 0; i < size; i += 2) {
+            int item = bucket[i];
+            if (ticks[item] == bucket[i + 1]) {
+                ticks[item] = -1;
+                if (dueCount == due.length) {
+                    due = Arrays.copyOf(due, 2 * due.length);
+                }
+                due[dueCount++] = item;
+            }
+        }
+        sizes[0][slot] = 0;
+        Arrays.sort(due, 0, dueCount);
+
+        now++;
+        cascade();
+        return dueCount;
+    }
+
+    /**
+     * Returns the items of the last poll (the first getDueCount() entries are valid).
+     * @return the items of the last poll
+     */
+    public int[] getDue() {
+        return due;
+    }
+
+    /**
+     * Returns the number of items of the last poll.
+     * @return the number of items
+     */
+    public int getDueCount() {
+        return dueCount;
+    }
+
+    /**
+     * Moves the entries of the block the current tick just entered one level down.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = BITS * level;
+            if ((now & ((1 << shift) - 1)) != 0) {
+                return;
+            }
+            int slot = (now >>> shift) & (SLOTS - 1);
+            int[] bucket = buckets[level][slot];
+            int size = sizes[level][slot];
+            buckets[level][slot] = new int[4];
+            sizes[level][slot] = 0;
+            reinsert(bucket, size);
+            if (slot != 0) {
+                return;
+            }
+        }
+        //The current tick has passed the whole wheel, so the overflow may now fit
+        int[] entries = overflow;
+        int size = overflowSize;
+        overflow = new int[4];
+        overflowSize = 0;
+        reinsert(entries, size);
+    }
+
+    /**
+     * Inserts the valid entries of a bucket again (relative to the current tick).
+     */
+    private void reinsert(int[] entries, int size) {
+        for (int i = 0; i < size; i += 2) {
+            if (ticks[entries[i]] == entries[i + 1]) {
+                insert(entries[i], entries[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Inserts an entry in the level determined by how far ahead its tick is.
+     */
+    private void insert(int item, int tick) {
+        long delta = (long) tick - now;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < (1L << (BITS * (level + 1)))) {
+                int slot = (tick >>> (BITS * level)) & (SLOTS - 1);
+                int size = sizes[level][slot];
+                int[] bucket = buckets[level][slot];
+                if (size + 2 > bucket.length) {
+                    bucket = Arrays.copyOf(bucket, 2 * bucket.length);
+                    buckets[level][slot] = bucket;
+                }
+                bucket[size] = item;
+                bucket[size + 1] = tick;
+                sizes[level][slot] = size + 2;
+                return;
+            }
+        }
+        if (overflowSize + 2 > overflow.length) {
+            overflow = Arrays.copyOf(overflow, 2 * overflow.length);
+        }
+        overflow[overflowSize++] = item;
+        overflow[overflowSize++] = tick;
+    }
+}
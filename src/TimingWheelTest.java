@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the various methods and variables of TimingWheel
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+
+public class TimingWheelTest {
+
+    /**
+     * Polls the wheel once and returns the due items
+     */
+    private List<Integer> poll(TimingWheel wheel) {
+        List<Integer> items = new ArrayList<>();
+        int due = wheel.poll();
+        for (int i = 0; i < due; i++) {
+            items.add(wheel.getDue()[i]);
+        }
+        return items;
+    }
+
+    @Test
+    public void poll() {
+        TimingWheel wheel = new TimingWheel(3, 0);
+        wheel.schedule(2, 0);
+        wheel.schedule(0, 0);
+        wheel.schedule(1, 2);
+        //Items are returned in increasing order
+        assertEquals(List.of(0, 2), poll(wheel));
+        assertEquals(List.of(), poll(wheel));
+        assertEquals(List.of(1), poll(wheel));
+        assertEquals(3, wheel.getNow());
+        assertEquals(-1, wheel.getTick(1));
+    }
+
+    @Test
+    public void reschedule() {
+        TimingWheel wheel = new TimingWheel(2, 5);
+        wheel.schedule(0, 6);
+        wheel.schedule(1, 6);
+        //Rescheduling cancels the old tick
+        wheel.schedule(0, 7);
+        wheel.cancel(1);
+        assertEquals(List.of(), poll(wheel));
+        assertEquals(List.of(), poll(wheel));
+        assertEquals(List.of(0), poll(wheel));
+        assertThrows(IllegalArgumentException.class, () -> wheel.schedule(1, 7));
+    }
+
+    @Test
+    public void cascade() {
+        //Compares the wheel with a list of ticks, including ticks several levels ahead
+        Random random = new Random(0);
+        int items = 500;
+        TimingWheel wheel = new TimingWheel(items, 0);
+        int[] ticks = new int[items];
+        for (int i = 0; i < items; i++) {
+            ticks[i] = random.nextInt(i % 5 == 0 ? 300000 : 5000);
+            wheel.schedule(i, ticks[i]);
+        }
+        int found = 0;
+        for (int now = 0; now < 300000; now++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < items; i++) {
+                if (ticks[i] == now) {
+                    expected.add(i);
+                }
+            }
+            List<Integer> due = poll(wheel);
+            assertEquals(expected, due);
+            found += due.size();
+            //Reschedule some of the items
+            for (int item : due) {
+                if (random.nextBoolean()) {
+                    ticks[item] = now + 1 + random.nextInt(100);
+                    wheel.schedule(item, ticks[item]);
+                }
+            }
+        }
+        assertTrue(found >= items);
+    }
+}
@@ -0,0 +1,300 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A bounded table of the best paths from search states of the BacktrackingPlanner, so a state which is reached
+ * by different orderings of the same roads is only searched once. A state is the current city, the number of
+ * steps left and the number of visits of every city (which determine the best path from the state, for given
+ * values of the cities). It is identified by a Zobrist hash: the XOR of a random key for the city, a random key for
+ * the steps left, a key for every (city, visits) pair (a hash of the pair, so it takes no memory), and a hash of the
+ * values of the cities, so the hash can be updated incrementally when a city is visited, and the entries of earlier
+ * searches are only found again if the values are the same. Different states with the same 64-bit hash are not
+ * detected (which is very unlikely).
+ *
+ * The table has a fixed number of slots (as many as fit in the memory cap next to the random keys of the cities and
+ * steps), and a state can only be stored in one slot.
+ * A new entry replaces the entry in its slot if that entry is from a search more than 'ageCutoff' searches ago,
+ * or if it has at most as many steps left (depth-preferred: the entries with more steps left saved more work).
+ *
+ * @author 202406714 Magnus Debel-Hansen og 20240543 Alexander Bak
+ */
+public class TranspositionTable {
+    private static final int SLOT_BYTES = 8 + 4 + 4 + 8 + 4 + 4;    // Bytes of a slot without its path
+
+    private final long capacity;        // Memory cap in bytes
+    private final int ageCutoff;        // Number of searches after which an entry can always be replaced
+    private int search;                 // Number of the current search
+
+    private long[] cityKeys;            // Random key of every city
+    private long[] stepKeys;            // Random key of every number of steps left
+    private int cities;                 // Number of cities of the keys
+    private int maxSteps;               // Largest number of steps left of the keys
+
+    private int pathLength;             // Maximal number of roads of a stored path
+    private int mask;                   // Number of slots - 1 (the number of slots is a power of 2)
+    private long[] keys;                // Hash of the state in every slot
+    private int[] steps;                // Steps left of the state in every slot (-1 if the slot is empty)
+    private int[] ages;                 // Search which stored every slot
+    private double[] values;            // Value of the best path of every slot
+    private int[] lengths;              // Length of the best path of every slot
+    private int[] sizes;                // Number of roads of the best path of every slot
+    private int[] roads;                // Roads of the best paths ('pathLength' per slot)
+    private int[] penalties;            // Visits of the cities of the best paths ('pathLength' per slot)
+
+    private long probes;                // Number of lookups
+    private long hits;                  // Number of lookups which found the state
+    private long stores;                // Number of stored entries
+    private long replaced;              // Number of stored entries which replaced another state
+
+    /**
+     * Creates a transposition table.
+     * @param capacity the memory cap in bytes
+     * @param ageCutoff the number of searches after which an entry can always be replaced
+     */
+    public TranspositionTable(long capacity, int ageCutoff) {
+        this.capacity = capacity;
+        this.ageCutoff = ageCutoff;
+    }
+
+    /**
+     * Creates a transposition table of 4 MB whose entries can always be replaced after 2 searches.
+     */
+    public TranspositionTable() {
+        this(4 << 20, 2);
+    }
+
+    /**
+     * Returns the memory cap of this table.
+     * @return the memory cap in bytes
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of searches after which an entry can always be replaced.
+     * @return the age cutoff
+     */
+    public int getAgeCutoff() {
+        return ageCutoff;
+    }
+
+    /**
+     * Starts a new search, and makes room for its states. The table is cleared if the paths can be longer
+     * than before (as the slots then must be larger), or if new keys are needed for more cities or steps.
+     * @param cities the number of cities
+     * @param maxSteps the number of steps left of the search
+     * @param maxRoads the maximal number of roads of a path
+     */
+    void startSearch(int cities, int maxSteps, int maxRoads) {
+        search++;
+        if (cities != this.cities || maxSteps > this.maxSteps) {
+            createKeys(cities, Math.max(maxSteps, this.maxSteps));
+        }
+        if (keys == null || maxRoads > pathLength) {
+            createSlots(maxRoads);
+        }
+    }
+
+    /**
+     * Creates the random keys (with a fixed seed, so the table behaves the same in every run). The slots are
+     * created again, as the keys take part of the memory cap.
+     */
+    private void createKeys(int cities, int maxSteps) {
+        SplittableRandom random = new SplittableRandom(0x5EED);
+        this.cities = cities;
+        this.maxSteps = maxSteps;
+        cityKeys = new long[cities];
+        for (int i = 0; i < cityKeys.length; i++) {
+            cityKeys[i] = random.nextLong();
+        }
+        stepKeys = new long[maxSteps + 1];
+        for (int i = 0; i < stepKeys.length; i++) {
+            stepKeys[i] = random.nextLong();
+        }
+        keys = null;
+    }
+
+    /**
+     * Creates as many slots as fit in the memory cap next to the keys (a power of 2, at least 1).
+     */
+    private void createSlots(int maxRoads) {
+        pathLength = maxRoads;
+        long free = capacity - 8L * (cityKeys.length + stepKeys.length);
+        long slots = Math.max(1, free / (SLOT_BYTES + 8L * pathLength));
+        int count = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        mask = count - 1;
+        keys = new long[count];
+        steps = new int[count];
+        Arrays.fill(steps, -1);
+        ages = new int[count];
+        values = new double[count];
+        lengths = new int[count];
+        sizes = new int[count];
+        roads = new int[count * pathLength];
+        penalties = new int[count * pathLength];
+    }
+
+    /**
+     * Removes all entries (the statistics are kept).
+     */
+    public void clear() {
+        if (steps != null) {
+            Arrays.fill(steps, -1);
+        }
+    }
+
+    /**
+     * Returns the key of a city with a number of steps left.
+     * @param city the index of the city
+     * @param n the number of steps left
+     * @return the key
+     */
+    long cityKey(int city, int n) {
+        return cityKeys[city] ^ stepKeys[n];
+    }
+
+    /**
+     * Returns the key of a city with a number of visits (0 for no visits), which is a hash of the pair.
+     * @param city the index of the city
+     * @param visits the number of visits
+     * @return the key
+     */
+    long visitKey(int city, int visits) {
+        return visits == 0 ? 0 : RandomStreams.mix((((long) city << 32) | visits) * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Looks up a state.
+     * @param key the hash of the state
+     * @param n the number of steps left of the state
+     * @return the slot of the state, or -1 if it is not in the table
+     */
+    int find(long key, int n) {
+        probes++;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        if (steps[slot] == n && keys[slot] == key) {
+            hits++;
+            ages[slot] = search;
+            return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores the best path from a state, unless the slot holds a recent state with more steps left.
+     * @param key the hash of the state
+     * @param n the number of steps left of the state
+     * @param value the value of the best path
+     * @param length the length of the best path
+     * @param size the number of roads of the best path
+     * @param pathRoads the roads of the best path
+     * @param pathPenalties the visits of the cities of the best path
+     */
+    void store(long key, int n, double value, int length, int size, int[] pathRoads, int[] pathPenalties) {
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        if (steps[slot] >= 0 && steps[slot] > n && search - ages[slot] <= ageCutoff) {
+            return;
+        }
+        if (steps[slot] >= 0 && keys[slot] != key) {
+            replaced++;
+        }
+        stores++;
+        keys[slot] = key;
+        steps[slot] = n;
+        ages[slot] = search;
+        values[slot] = value;
+        lengths[slot] = length;
+        sizes[slot] = size;
+        System.arraycopy(pathRoads, 0, roads, slot * pathLength, size);
+        System.arraycopy(pathPenalties, 0, penalties, slot * pathLength, size);
+    }
+
+    /**
+     * Returns the value of the best path of a slot.
+     */
+    double getValue(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Returns the length of the best path of a slot.
+     */
+    int getLength(int slot) {
+        return lengths[slot];
+    }
+
+    /**
+     * Copies the best path of a slot and returns its number of roads.
+     * @param slot the slot
+     * @param pathRoads the array for the roads of the path
+     * @param pathPenalties the array for the visits of the cities of the path
+     * @return the number of roads
+     */
+    int copyPath(int slot, int[] pathRoads, int[] pathPenalties) {
+        System.arraycopy(roads, slot * pathLength, pathRoads, 0, sizes[slot]);
+        System.arraycopy(penalties, slot * pathLength, pathPenalties, 0, sizes[slot]);
+        return sizes[slot];
+    }
+
+    /**
+     * Returns the fraction of the lookups which found the state.
+     * @return the hit rate (0 if there were no lookups)
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : hits / (double) probes;
+    }
+
+    /**
+     * Returns the number of lookups.
+     * @return the number of lookups
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Returns the number of lookups which found the state.
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of stored entries.
+     * @return the number of stored entries
+     */
+    public long getStores() {
+        return stores;
+    }
+
+    /**
+     * Returns the number of stored entries which replaced another state.
+     * @return the number of replacements
+     */
+    public long getReplaced() {
+        return replaced;
+    }
+
+    /**
+     * Returns the number of slots of the table.
+     * @return the number of slots (0 before the first search)
+     */
+    public int getSlots() {
+        return keys == null ? 0 : keys.length;
+    }
+
+    /**
+     * Returns the memory used by the slots and keys of the table (at most the memory cap, unless the keys and a
+     * single slot do not fit in it).
+     * @return the memory in bytes
+     */
+    public long getMemory() {
+        long memory = (cityKeys == null ? 0 : 8L * (cityKeys.length + stepKeys.length));
+        if (keys != null) {
+            memory += (long) keys.length * (SLOT_BYTES + 8L * pathLength);
+        }
+        return memory;
+    }
+}